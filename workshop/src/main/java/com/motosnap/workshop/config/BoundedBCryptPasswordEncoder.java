@@ -0,0 +1,148 @@
+package com.motosnap.workshop.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt encoder that hashes on its own small, bounded pool.
+ *
+ * At most threads + queueCapacity hash operations are in flight. Anything beyond
+ * that fails at once with BusyException, which the auth endpoints turn into a 503,
+ * so a burst of logins cannot hold every Tomcat thread waiting on BCrypt.
+ *
+ * upgradeEncoding reports hashes with a lower cost than the configured one; Spring
+ * Security then re-encodes the password on a successful login through
+ * UserDetailsPasswordService. Stronger hashes are left alone, so a node with a lower
+ * cost never weakens them.
+ */
+public class BoundedBCryptPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final int cost;
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final Counter rejected;
+
+    public BoundedBCryptPasswordEncoder(int cost, int threads, int queueCapacity, long timeoutMillis,
+                                        MeterRegistry meterRegistry) {
+        this.cost = cost;
+        this.delegate = new BCryptPasswordEncoder(cost);
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "passwordHashing");
+        this.rejected = Counter.builder("auth.password.hashing.rejected")
+            .description("Password hash operations refused because the hashing queue was full")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Pick the highest BCrypt cost whose hash time stays within the budget, measured
+     * on this machine. Each cost step doubles the work, so only minCost is timed.
+     */
+    public static int calibrateCost(long targetMillis, int minCost, int maxCost) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minCost);
+        probe.encode("calibration-warmup");
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration-password");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double millis = best / 1_000_000.0;
+        int cost = minCost;
+        while (cost < maxCost && millis * 2 <= targetMillis) {
+            millis *= 2;
+            cost++;
+        }
+        System.out.println("DEBUG: BCrypt cost calibrated to " + cost + " (~" + Math.round(millis) + " ms per hash, budget " + targetMillis + " ms); set auth.bcrypt.cost=" + cost + " to pin it");
+        return cost;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // BCrypt hashes look like $2a$12$...; the two digits are the cost
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) < cost;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new BusyException();
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new BusyException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusyException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The hashing pool is saturated; the caller should answer 503 and let the client retry.
+     */
+    public static class BusyException extends RuntimeException {
+        public BusyException() {
+            super("Authentication service is busy, please retry shortly");
+        }
+    }
+}
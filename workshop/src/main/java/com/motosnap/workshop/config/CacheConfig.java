@@ -0,0 +1,55 @@
+package com.motosnap.workshop.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through caches for the anonymous catalog endpoints.
+ * The Caffeine spec (size, TTL, stats) lives in application.properties under spring.cache.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PARTS_CATALOG = "partsCatalog";
+    public static final String PUBLIC_SERVICES = "publicServices";
+
+    /**
+     * Actuator already publishes hits, misses, puts and evictions for these caches.
+     * Load counts and load time are only published for loading caches, so they are
+     * bound here from the Caffeine stats recorded by the @Cacheable(sync = true) loads.
+     */
+    @Bean
+    public MeterBinder catalogCacheLoadMetrics(CacheManager cacheManager) {
+        return registry -> {
+            for (String name : List.of(PARTS_CATALOG, PUBLIC_SERVICES)) {
+                Cache cache = cacheManager.getCache(name);
+                if (!(cache instanceof CaffeineCache caffeineCache)) {
+                    continue;
+                }
+                com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = caffeineCache.getNativeCache();
+                FunctionTimer.builder("cache.load.duration", nativeCache,
+                                c -> c.stats().loadCount(),
+                                c -> c.stats().totalLoadTime(),
+                                TimeUnit.NANOSECONDS)
+                        .tag("cache", name)
+                        .description("Time spent loading catalog entries on a cache miss")
+                        .register(registry);
+                FunctionCounter.builder("cache.load.failures", nativeCache, c -> c.stats().loadFailureCount())
+                        .tag("cache", name)
+                        .description("Catalog loads that threw an exception")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -1,7 +1,9 @@
 package com.motosnap.workshop.config;
 
 import com.motosnap.workshop.service.JwtService;
+import com.motosnap.workshop.service.TokenRevocationRegistry;
 import com.motosnap.workshop.service.UserDetailsServiceImpl;
+import com.motosnap.workshop.service.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,18 +21,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsServiceImpl userDetailsService;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsServiceImpl userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsServiceImpl userDetailsService,
+                                   TokenRevocationRegistry tokenRevocationRegistry) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                   FilterChain filterChain) throws ServletException, IOException {
         
-        // Bypass JWT validation for the refresh token endpoint
-        if (request.getRequestURI().equals("/api/auth/refresh")) {
+        // Bypass JWT validation for the endpoints that take a refresh token
+        if (request.getRequestURI().equals("/api/auth/refresh") || request.getRequestURI().equals("/api/auth/logout")) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -46,26 +51,38 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             jwt = authHeader.substring(7);
-            userEmail = jwtService.extractUsername(jwt);
+            // Signature and expiry are checked once here; the claims below come from the verified token
+            VerifiedToken token = jwtService.verify(jwt);
+            userEmail = token.getSubject();
 
             if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 
                 // Ensure this is an access token, not a refresh token
-                if (!jwtService.isAccessToken(jwt)) {
+                if (!token.isAccessToken()) {
                     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                     response.setContentType("application/json");
                     response.getWriter().write("{\"error\":\"Invalid token type. Use access token for API calls.\"}");
                     return;
                 }
 
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-                
-                if (jwtService.validateToken(jwt, userEmail)) {
-                    UsernamePasswordAuthenticationToken authToken = 
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                // Role changed or account removed since this token was issued
+                if (tokenRevocationRegistry.isRevoked(token)) {
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    response.setContentType("application/json");
+                    response.getWriter().write("{\"error\":\"Token has been revoked. Please refresh or log in again.\"}");
+                    return;
                 }
+
+                // The principal comes from the signed claims; only tokens without them need the user row
+                UserDetails userDetails = this.userDetailsService.loadUserFromToken(token);
+                if (userDetails == null) {
+                    userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+                }
+                
+                UsernamePasswordAuthenticationToken authToken = 
+                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
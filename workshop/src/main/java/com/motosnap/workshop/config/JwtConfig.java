@@ -17,6 +17,9 @@ public class JwtConfig {
     @Value("${jwt.expiration.refresh:604800000}") // 7 days default
     private long refreshTokenExpiration;
     
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private long verifiedCacheMaxSize;
+    
     @PostConstruct
     public void validateConfiguration() {
         if (secret == null || secret.trim().isEmpty()) {
@@ -43,4 +46,8 @@ public class JwtConfig {
     public long getRefreshTokenExpiration() {
         return refreshTokenExpiration;
     }
+    
+    public long getVerifiedCacheMaxSize() {
+        return verifiedCacheMaxSize;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,162 @@
+package com.motosnap.workshop.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket limits for the routes listed under rate-limit.routes.
+ *
+ * Runs right after JwtAuthenticationFilter, so signed-in clients are limited per
+ * user and anonymous ones (login, register) per IP. Behind proxies, the IP is read
+ * from X-Forwarded-For counting rate-limit.trusted-proxy-hops entries from the
+ * right: each proxy appends the address it saw, and anything further left was
+ * sent by the client and can be forged. Each bucket is a single
+ * AtomicLong holding the bucket's "theoretical arrival time" (GCRA): a request
+ * moves it forward by one refill interval with a CAS, and is refused when that
+ * would put it more than one full bucket ahead of now. No locks are taken, and the
+ * bucket map is a Caffeine cache, so idle clients age out.
+ *
+ * Refused requests get 429 with Retry-After and are counted in
+ * http.server.requests.rate.limited, tagged by route. The counters are registered
+ * up front and nothing is logged per refusal, so a flood costs no more than a CAS
+ * and an increment per request.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Cache<String, AtomicLong> buckets;
+    // Refusal counters by route, then "user" / "ip"
+    private final Map<String, Map<String, Counter>> rejections = new HashMap<>();
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        for (String route : properties.getRoutes().keySet()) {
+            Map<String, Counter> byClient = new HashMap<>();
+            for (String client : new String[] {"user", "ip"}) {
+                byClient.put(client, Counter.builder("http.server.requests.rate.limited")
+                    .description("Requests refused by the rate limiter")
+                    .tag("route", route)
+                    .tag("client", client)
+                    .register(meterRegistry));
+            }
+            rejections.put(route, byClient);
+        }
+        Duration idle = properties.getRoutes().values().stream()
+            .map(RateLimitProperties.Route::getRefillPeriod)
+            .max(Duration::compareTo)
+            .orElse(Duration.ofMinutes(1));
+        // After one full refill period a bucket is full again, so dropping it loses nothing
+        this.buckets = Caffeine.newBuilder()
+            .expireAfterAccess(idle)
+            .maximumSize(100_000)
+            .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || properties.getRoutes().isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Map.Entry<String, RateLimitProperties.Route> entry : properties.getRoutes().entrySet()) {
+            RateLimitProperties.Route route = entry.getValue();
+            if (!matches(route, path)) {
+                continue;
+            }
+            String client = clientKey(request);
+            long waitNanos = tryAcquire(entry.getKey() + "|" + client, route);
+            if (waitNanos > 0) {
+                reject(response, entry.getKey(), client, waitNanos);
+                return;
+            }
+            break;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean matches(RateLimitProperties.Route route, String path) {
+        for (String pattern : route.getPaths()) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Take one token from the bucket.
+     *
+     * @return 0 when the request may proceed, otherwise nanoseconds until a token is available
+     */
+    private long tryAcquire(String bucketKey, RateLimitProperties.Route route) {
+        long period = route.getRefillPeriod().toNanos();
+        long interval = period / Math.max(1, route.getCapacity());
+        AtomicLong arrival = buckets.get(bucketKey, key -> new AtomicLong(Long.MIN_VALUE));
+        long now = System.nanoTime();
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - period;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        if (properties.isTrustForwardedFor()) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                String[] hops = forwardedFor.split(",");
+                int client = hops.length - Math.max(1, properties.getTrustedProxyHops());
+                // Fewer entries than proxies: the request did not come through all of them
+                if (client >= 0 && !hops[client].isBlank()) {
+                    return "ip:" + hops[client].trim();
+                }
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, String route, String client, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        rejections.get(route).get(client.startsWith("user:") ? "user" : "ip").increment();
+
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"Too many requests. Please retry after " + retryAfterSeconds + " seconds.\"}");
+    }
+}
@@ -0,0 +1,12 @@
+package com.motosnap.workshop.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled housekeeping jobs (expired token cleanup and similar).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
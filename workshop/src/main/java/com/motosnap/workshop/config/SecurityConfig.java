@@ -1,5 +1,7 @@
 package com.motosnap.workshop.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -7,7 +9,6 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -17,14 +18,34 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
     
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
     
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, RateLimitFilter rateLimitFilter) {
         this.jwtAuthFilter = jwtAuthFilter;
+        this.rateLimitFilter = rateLimitFilter;
     }
     
+    /**
+     * BCrypt on a bounded hashing pool, at the pinned auth.bcrypt.cost. With cost 0 the
+     * cost is calibrated at startup to the auth.bcrypt.target-ms budget instead. Either
+     * way it stays within min-cost..max-cost; min-cost is the cost of existing hashes.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12); // Strong hashing with 12 rounds
+    public PasswordEncoder passwordEncoder(
+            @Value("${auth.bcrypt.cost:12}") int cost,
+            @Value("${auth.bcrypt.target-ms:250}") long targetMillis,
+            @Value("${auth.bcrypt.min-cost:12}") int minCost,
+            @Value("${auth.bcrypt.max-cost:14}") int maxCost,
+            @Value("${auth.hashing.threads:0}") int threads,
+            @Value("${auth.hashing.queue-capacity:32}") int queueCapacity,
+            @Value("${auth.hashing.timeout-ms:10000}") long timeoutMillis,
+            MeterRegistry meterRegistry) {
+        if (cost > 0 && (cost < minCost || cost > maxCost)) {
+            throw new RuntimeException("auth.bcrypt.cost must be between " + minCost + " and " + maxCost + ", was " + cost);
+        }
+        int bcryptCost = cost > 0 ? cost : BoundedBCryptPasswordEncoder.calibrateCost(targetMillis, minCost, maxCost);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedBCryptPasswordEncoder(bcryptCost, poolSize, queueCapacity, timeoutMillis, meterRegistry);
     }
     
     @Bean
@@ -41,11 +62,13 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 // Public endpoints
                 .requestMatchers("/api/auth/register", "/api/auth/login", 
-                                "/api/auth/refresh").permitAll()
+                                "/api/auth/refresh", "/api/auth/logout").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/info").permitAll()
                 
                 // Admin only endpoints
                 .requestMatchers("/api/admin/**", "/api/users/**", 
                                 "/api/inventory/**", "/api/services/**").hasRole("ADMIN")
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 
                 // Booking management endpoints (Admin and Mechanic)
                 .requestMatchers("/api/bookings/*/status", "/api/bookings/*/assign").hasAnyRole("ADMIN", "MECHANIC")
@@ -62,7 +85,9 @@ public class SecurityConfig {
                 // Allow all other requests for now (will be restricted as we build features)
                 .anyRequest().permitAll()
             )
-            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            // Limits by user once the token is known, otherwise by IP
+            .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
         
         return http.build();
     }
@@ -0,0 +1,76 @@
+package com.motosnap.workshop.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the id sequences past the ids already in their tables.
+ *
+ * Entities that used IDENTITY ids and now use pooled sequences keep their
+ * existing rows, but a freshly created sequence (or, on MySQL, sequence table)
+ * starts at 1. Before the application serves requests, every sequence is raised
+ * to at least max(id) + allocation size so the first pooled block cannot collide
+ * with an existing row. Sequences are only ever moved forward.
+ */
+@Component
+public class SequenceIdInitializer {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    public SequenceIdInitializer(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignSequences() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (!(persister.getGenerator() instanceof SequenceStyleGenerator generator)
+                    || !(persister instanceof AbstractEntityPersister entityPersister)) {
+                return;
+            }
+            DatabaseStructure structure = generator.getDatabaseStructure();
+            String sequenceName = structure.getPhysicalName().getObjectName().render(dialect);
+            String tableName = entityPersister.getTableName();
+            String idColumn = entityPersister.getIdentifierColumnNames()[0];
+
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(" + idColumn + ") FROM " + tableName, Long.class);
+            if (maxId == null) {
+                return;
+            }
+            long nextValue = maxId + structure.getIncrementSize() + 1;
+
+            if (structure.isPhysicalSequence()) {
+                Long current = jdbcTemplate.queryForObject(
+                    dialect.getSequenceSupport().getSequenceNextValString(sequenceName), Long.class);
+                if (current != null && current < nextValue) {
+                    jdbcTemplate.execute("ALTER SEQUENCE " + sequenceName + " RESTART WITH " + nextValue);
+                    System.out.println("DEBUG: Moved sequence " + sequenceName + " to " + nextValue);
+                }
+            } else {
+                // Table-backed sequence (MySQL has no native sequences): a single next_val row
+                int updated = jdbcTemplate.update(
+                    "UPDATE " + sequenceName + " SET next_val = ? WHERE next_val < ?", nextValue, nextValue);
+                Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + sequenceName, Integer.class);
+                if (rows != null && rows == 0) {
+                    jdbcTemplate.update("INSERT INTO " + sequenceName + " (next_val) VALUES (?)", nextValue);
+                    updated = 1;
+                }
+                if (updated > 0) {
+                    System.out.println("DEBUG: Moved sequence table " + sequenceName + " to " + nextValue);
+                }
+            }
+        });
+    }
+}
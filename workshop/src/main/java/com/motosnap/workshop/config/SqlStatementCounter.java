@@ -0,0 +1,38 @@
+package com.motosnap.workshop.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread.
+ *
+ * Registered through hibernate.session_factory.statement_inspector, so Hibernate
+ * creates the instance and the count lives in a static thread local. Counting is
+ * only active between start() and stop(), which SqlStatementMetricsFilter calls
+ * around each request. Statements sent through JdbcTemplate are not seen here.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    /**
+     * @return statements counted since start(), or 0 when counting was not started
+     */
+    public static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count != null ? count[0] : 0;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
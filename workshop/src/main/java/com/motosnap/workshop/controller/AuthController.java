@@ -1,13 +1,18 @@
 package com.motosnap.workshop.controller;
 
+import com.motosnap.workshop.config.BoundedBCryptPasswordEncoder;
 import com.motosnap.workshop.dto.AuthResponse;
 import com.motosnap.workshop.dto.LoginRequest;
 import com.motosnap.workshop.dto.RegisterRequest;
 import com.motosnap.workshop.entity.Role;
 import com.motosnap.workshop.entity.User;
 import com.motosnap.workshop.repository.UserRepository;
+import com.motosnap.workshop.service.BookingAvailability;
 import com.motosnap.workshop.service.JwtService;
+import com.motosnap.workshop.service.RefreshTokenService;
 import com.motosnap.workshop.service.PasswordValidationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -24,17 +29,23 @@ public class AuthController {
     private final PasswordValidationService passwordValidationService;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final RefreshTokenService refreshTokenService;
+    private final BookingAvailability bookingAvailability;
 
     public AuthController(UserRepository userRepository, 
                          PasswordEncoder passwordEncoder,
                          PasswordValidationService passwordValidationService,
                          JwtService jwtService,
-                         AuthenticationManager authenticationManager) {
+                         AuthenticationManager authenticationManager,
+                         RefreshTokenService refreshTokenService,
+                         BookingAvailability bookingAvailability) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.passwordValidationService = passwordValidationService;
         this.jwtService = jwtService;
         this.authenticationManager = authenticationManager;
+        this.refreshTokenService = refreshTokenService;
+        this.bookingAvailability = bookingAvailability;
     }
 
     @PostMapping("/register")
@@ -74,10 +85,13 @@ public class AuthController {
             );
 
             User savedUser = userRepository.save(user);
+            if (userRole == Role.MECHANIC) {
+                bookingAvailability.reloadMechanicsAfterCommit();
+            }
 
             // Generate tokens
             String accessToken = jwtService.generateAccessToken(savedUser);
-            String refreshToken = jwtService.generateRefreshToken(savedUser);
+            String refreshToken = refreshTokenService.issue(savedUser);
 
             // Create response
             AuthResponse.UserInfo userInfo = new AuthResponse.UserInfo(
@@ -98,6 +112,8 @@ public class AuthController {
 
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        } catch (BoundedBCryptPasswordEncoder.BusyException e) {
+            return busy(e);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("{\"error\":\"Registration failed\"}");
         }
@@ -130,7 +146,7 @@ public class AuthController {
 
             // Generate tokens
             String accessToken = jwtService.generateAccessToken(user);
-            String refreshToken = jwtService.generateRefreshToken(user);
+            String refreshToken = refreshTokenService.issue(user);
 
             // Create response
             AuthResponse.UserInfo userInfo = new AuthResponse.UserInfo(
@@ -149,6 +165,8 @@ public class AuthController {
 
             return ResponseEntity.ok(response);
 
+        } catch (BoundedBCryptPasswordEncoder.BusyException e) {
+            return busy(e);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("{\"error\":\"Invalid email or password\"}");
         }
@@ -161,27 +179,14 @@ public class AuthController {
                 return ResponseEntity.badRequest().body("{\"error\":\"Invalid token format\"}");
             }
 
-            String refreshToken = authHeader.substring(7);
-
-            // Validate it's a refresh token
-            if (!jwtService.isRefreshToken(refreshToken)) {
-                return ResponseEntity.badRequest().body("{\"error\":\"Invalid token type\"}");
-            }
-
-            // Extract username and validate token
-            String email = jwtService.extractUsername(refreshToken);
-            if (jwtService.isTokenExpired(refreshToken)) {
-                return ResponseEntity.badRequest().body("{\"error\":\"Refresh token expired\"}");
-            }
-
-            // Get user
-            User user = userRepository.findByEmailAndActive(email, true)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+            // Use up the refresh token and get its replacement
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(authHeader.substring(7));
+            User user = rotation.getUser();
 
             // Generate new access token
             String newAccessToken = jwtService.generateAccessToken(user);
 
-            // Create response with new access token and same refresh token
+            // Create response with new access token and the rotated refresh token
             AuthResponse.UserInfo userInfo = new AuthResponse.UserInfo(
                 user.getId(),
                 user.getEmail(),
@@ -191,15 +196,48 @@ public class AuthController {
 
             AuthResponse response = new AuthResponse(
                 newAccessToken,
-                refreshToken, // Keep the same refresh token
+                rotation.getRefreshToken(),
                 900000L, // 15 minutes
                 userInfo
             );
 
             return ResponseEntity.ok(response);
 
+        } catch (RefreshTokenService.TokenReuseException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body("{\"error\":\"Refresh token reuse detected, all sessions have been signed out\"}");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("{\"error\":\"Invalid or expired refresh token\"}");
         }
     }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader("Authorization") String authHeader,
+                                    @RequestParam(defaultValue = "false") boolean allSessions) {
+        try {
+            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                return ResponseEntity.badRequest().body("{\"error\":\"Invalid token format\"}");
+            }
+
+            // Expects the refresh token, like /refresh
+            String refreshToken = authHeader.substring(7);
+            if (allSessions) {
+                refreshTokenService.revokeAllForUser(refreshTokenService.getUserId(refreshToken));
+            } else {
+                refreshTokenService.revoke(refreshToken);
+            }
+
+            return ResponseEntity.ok("{\"message\":\"Logged out\"}");
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"Invalid or expired refresh token\"}");
+        }
+    }
+
+    // Password hashing pool is full: ask the client to come back instead of queueing
+    private ResponseEntity<?> busy(BoundedBCryptPasswordEncoder.BusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body("{\"error\":\"" + e.getMessage() + "\"}");
+    }
 }
\ No newline at end of file
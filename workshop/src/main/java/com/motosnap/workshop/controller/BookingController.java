@@ -1,11 +1,14 @@
 package com.motosnap.workshop.controller;
 
+import com.motosnap.workshop.dto.BookingAvailabilityResponse;
+import com.motosnap.workshop.dto.BookingFeedResponse;
 import com.motosnap.workshop.dto.BookingRequest;
 import com.motosnap.workshop.dto.BookingResponse;
 import com.motosnap.workshop.dto.BookingStatusUpdateRequest;
 import com.motosnap.workshop.entity.BookingStatus;
 import com.motosnap.workshop.service.BookingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -13,6 +16,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -51,6 +56,22 @@ public class BookingController {
         }
     }
 
+    @GetMapping("/availability")
+    @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN') or hasRole('MECHANIC')")
+    public ResponseEntity<?> getAvailability(
+            @RequestParam Long serviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) Long mechanicId) {
+        try {
+            BookingAvailabilityResponse availability = bookingService.getAvailability(serviceId, date, mechanicId);
+            return ResponseEntity.ok(availability);
+        } catch (RuntimeException e) {
+            System.err.println("ERROR: Failed to get booking availability - " + e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage(), "details", e.getClass().getSimpleName()));
+        }
+    }
+
     @GetMapping("/my")
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
     public ResponseEntity<?> getUserBookings(Authentication authentication) {
@@ -78,9 +99,20 @@ public class BookingController {
     public ResponseEntity<?> getAllBookings(
             @RequestParam(required = false) String status,
             @RequestParam(required = false, defaultValue = "all") String filter,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeScheduledDateTime,
+            @RequestParam(required = false) Long beforeId,
             Authentication authentication) {
         try {
             System.out.println("DEBUG: Getting all bookings, filter: " + filter + ", status: " + status);
+            
+            // Cursor paging: /api/bookings?size=20, then add beforeScheduledDateTime and beforeId from the response
+            if (size != null && "all".equalsIgnoreCase(filter)) {
+                BookingStatus bookingStatus = status != null ? BookingStatus.valueOf(status.toUpperCase()) : null;
+                BookingFeedResponse page = bookingService.getBookingsPage(bookingStatus, beforeScheduledDateTime, beforeId, size);
+                return ResponseEntity.ok(page);
+            }
+            
             List<BookingResponse> bookings;
             
             if (status != null) {
@@ -2,6 +2,7 @@ package com.motosnap.workshop.controller;
 
 import com.motosnap.workshop.dto.CartItemRequest;
 import com.motosnap.workshop.dto.CartResponse;
+import com.motosnap.workshop.dto.CartUpdateRequest;
 import com.motosnap.workshop.service.CartService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -69,6 +70,29 @@ public class CartController {
         }
     }
 
+    // Several adds / quantity changes / removals in one request, e.g. all the parts of a quote
+    @PatchMapping
+    public ResponseEntity<?> updateCart(
+            @Valid @RequestBody CartUpdateRequest request,
+            Authentication authentication) {
+
+        try {
+            String email = authentication.getName();
+            System.out.println("DEBUG: Applying " + request.getOperations().size() + " cart operations for user: " + email);
+            CartResponse cart = cartService.updateCart(email, request);
+            return ResponseEntity.ok(cart);
+        } catch (RuntimeException e) {
+            System.err.println("ERROR: Failed to update cart - " + e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage(), "details", e.getClass().getSimpleName()));
+        } catch (Exception e) {
+            System.err.println("ERROR: Unexpected error updating cart - " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Internal server error: " + e.getMessage()));
+        }
+    }
+
     @PutMapping("/items/{itemId}")
     public ResponseEntity<?> updateCartItemQuantity(
             @PathVariable Long itemId,
@@ -31,6 +31,7 @@ public class InventoryController {
     public ResponseEntity<List<Inventory>> getAllInventoryItems(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
             @RequestParam(defaultValue = "false") boolean lowStock) {
         
         try {
@@ -42,6 +43,8 @@ public class InventoryController {
                 items = inventoryService.searchInventoryItems(search.trim());
             } else if (category != null && !category.trim().isEmpty()) {
                 items = inventoryService.getInventoryByCategory(category.trim());
+            } else if (brand != null && !brand.trim().isEmpty()) {
+                items = inventoryService.getInventoryByBrand(brand.trim());
             } else {
                 items = inventoryService.getAllInventoryItems();
             }
@@ -1,12 +1,15 @@
 package com.motosnap.workshop.controller;
 
 import com.motosnap.workshop.entity.InvoicePayment;
+import com.motosnap.workshop.entity.InvoicePaymentStatus;
 import com.motosnap.workshop.entity.User;
+import com.motosnap.workshop.dto.InvoicePaymentFeedResponse;
 import com.motosnap.workshop.dto.InvoicePaymentResponseDTO;
 import com.motosnap.workshop.service.InvoicePaymentService;
 import com.motosnap.workshop.repository.UserRepository;
 import com.motosnap.workshop.config.FileUploadProperties;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -18,6 +21,7 @@ import org.springframework.core.io.UrlResource;
 import org.springframework.http.MediaType;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -154,6 +158,28 @@ public class InvoicePaymentController {
         }
     }
 
+    /**
+     * Page through invoice payments newest first (Admin)
+     * GET /api/invoices/payments/feed?status=PAYMENT_SUBMITTED&size=20
+     * Next page: add beforeCreatedAt and beforeId from the previous response.
+     */
+    @GetMapping("/payments/feed")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getInvoicePaymentFeed(
+            @RequestParam(required = false) List<InvoicePaymentStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeCreatedAt,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "" + InvoicePaymentService.DEFAULT_FEED_SIZE) int size) {
+        try {
+            InvoicePaymentFeedResponse feed = invoicePaymentService.getPaymentFeed(status, beforeCreatedAt, beforeId, size);
+            return ResponseEntity.ok(feed);
+        } catch (RuntimeException e) {
+            System.err.println("ERROR: Failed to get invoice payment feed - " + e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Approve invoice payment (Admin)
      * PUT /api/invoices/payments/{paymentId}/approve
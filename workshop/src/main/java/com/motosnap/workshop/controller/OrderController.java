@@ -1,9 +1,17 @@
 package com.motosnap.workshop.controller;
 
+import com.motosnap.workshop.dto.CheckoutTicketResponse;
 import com.motosnap.workshop.dto.OrderResponse;
+import com.motosnap.workshop.entity.OrderStatus;
+import com.motosnap.workshop.service.CheckoutAdmissionService;
 import com.motosnap.workshop.service.OrderService;
 import com.motosnap.workshop.config.FileUploadProperties;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -15,6 +23,7 @@ import org.springframework.core.io.UrlResource;
 import org.springframework.http.MediaType;
 
 import jakarta.validation.Valid;
+import java.time.LocalDate;
 import java.util.Map;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -27,6 +36,9 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private CheckoutAdmissionService checkoutAdmissionService;
+
     @Autowired
     private FileUploadProperties fileUploadProperties;
 
@@ -51,6 +63,31 @@ public class OrderController {
         }
     }
 
+    /**
+     * Queued checkout for high-contention sales: returns a ticket at once; poll
+     * GET /api/orders/tickets/{ticketId} for the order.
+     */
+    @PostMapping("/tickets")
+    public ResponseEntity<?> createOrderTicket(Authentication authentication) {
+        try {
+            CheckoutTicketResponse ticket = checkoutAdmissionService.submit(authentication.getName());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ticket);
+        } catch (CheckoutAdmissionService.QueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/tickets/{ticketId}")
+    public ResponseEntity<?> getOrderTicket(@PathVariable String ticketId, Authentication authentication) {
+        CheckoutTicketResponse ticket = checkoutAdmissionService.getTicket(authentication.getName(), ticketId);
+        if (ticket == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(ticket);
+    }
+
     @PostMapping
     public ResponseEntity<?> createOrder(Authentication authentication) {
         try {
@@ -148,6 +185,26 @@ public class OrderController {
         }
     }
 
+    @GetMapping("/admin/orders/paginated")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getAllOrdersPaginated(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String customer) {
+        try {
+            Pageable pageable = PageRequest.of(page, Math.min(size, 100));
+            Page<OrderResponse> orders = orderService.getAllOrders(status, from, to, customer, pageable);
+            return ResponseEntity.ok(orders);
+        } catch (RuntimeException e) {
+            System.err.println("ERROR: Failed to get orders page - " + e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage(), "details", e.getClass().getSimpleName()));
+        }
+    }
+
     @PutMapping("/admin/orders/{orderId}/approve")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> approveOrder(@PathVariable Long orderId, Authentication authentication) {
@@ -1,12 +1,16 @@
 package com.motosnap.workshop.controller;
 
+import com.motosnap.workshop.dto.PartSuggestion;
 import com.motosnap.workshop.entity.Inventory;
+import com.motosnap.workshop.service.PartSuggestionIndex;
 import com.motosnap.workshop.service.InventoryService;
+import com.motosnap.workshop.service.StockAvailability;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/parts")
@@ -15,16 +19,48 @@ public class PartsController {
     @Autowired
     private InventoryService inventoryService;
 
+    @Autowired
+    private StockAvailability stockAvailability;
+
     @GetMapping
-    public ResponseEntity<List<Inventory>> getAllParts() {
-        List<Inventory> parts = inventoryService.getAllInventoryItems();
+    public ResponseEntity<List<Inventory>> getAllParts(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand) {
+        if (isBlank(search) && isBlank(category) && isBlank(brand)) {
+            return ResponseEntity.ok(inventoryService.getPartsCatalog());
+        }
+        List<Inventory> parts = inventoryService.searchCatalog(search, category, brand);
         return ResponseEntity.ok(parts);
     }
 
+    @GetMapping("/suggest")
+    public ResponseEntity<List<PartSuggestion>> suggestParts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "" + PartSuggestionIndex.DEFAULT_LIMIT) int limit) {
+        return ResponseEntity.ok(inventoryService.suggestParts(q, limit));
+    }
+
+    /**
+     * Stock badges for the parts grid: available quantity by part id, without
+     * loading the parts. With no ids, returns every part.
+     */
+    @GetMapping("/stock")
+    public ResponseEntity<Map<Long, Integer>> getStock(@RequestParam(required = false) List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return ResponseEntity.ok(stockAvailability.getAll());
+        }
+        return ResponseEntity.ok(stockAvailability.getAvailable(ids));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Inventory> getPartById(@PathVariable Long id) {
         return inventoryService.getInventoryItemById(id)
                 .map(part -> ResponseEntity.ok(part))
                 .orElse(ResponseEntity.notFound().build());
     }
-}
\ No newline at end of file
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -32,7 +32,7 @@ public class PublicServiceController {
             } else if (category != null && !category.trim().isEmpty()) {
                 services = serviceManagementService.getServicesByCategory(category.trim());
             } else {
-                services = serviceManagementService.getAllServices();
+                return ResponseEntity.ok(serviceManagementService.getPublicServiceCatalog());
             }
 
             // Convert to DTO to prevent circular reference issues
@@ -0,0 +1,24 @@
+package com.motosnap.workshop.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Times at which a service can still be booked on one day.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingAvailabilityResponse {
+
+    private Long serviceId;
+    private LocalDate date;
+    private Integer durationMinutes;
+    private Integer slotMinutes;
+    private List<LocalDateTime> availableStartTimes;
+}
@@ -0,0 +1,22 @@
+package com.motosnap.workshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One keyset page of bookings, latest scheduled first. Pass nextScheduledDateTime
+ * and nextId back as beforeScheduledDateTime and beforeId to get the following page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingFeedResponse {
+    private List<BookingResponse> bookings;
+    private boolean hasMore;
+    private LocalDateTime nextScheduledDateTime;
+    private Long nextId;
+}
@@ -0,0 +1,54 @@
+package com.motosnap.workshop.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Several cart changes sent at once (PATCH /api/cart). They are applied in order
+ * and either all succeed or none does.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartUpdateRequest {
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 100, message = "At most 100 operations per request")
+    @Valid
+    private List<Operation> operations;
+
+    public enum Action {
+        ADD,    // add quantity of a part (inventoryId), merging with its line if there is one
+        SET,    // set the quantity of a line
+        REMOVE  // remove a line
+    }
+
+    /**
+     * SET and REMOVE name the line by itemId, or by inventoryId for the line holding that part.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Operation {
+
+        @NotNull(message = "Action is required")
+        private Action action;
+
+        private Long inventoryId;
+
+        private Long itemId;
+
+        @Min(value = 1, message = "Quantity must be at least 1")
+        @Max(value = 9999, message = "Quantity cannot exceed 9999")
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,35 @@
+package com.motosnap.workshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of a queued checkout. Poll until the status is COMPLETED (orderId is set),
+ * REJECTED (not enough stock) or FAILED (message says why).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutTicketResponse {
+    
+    public enum Status {
+        QUEUED, ADMITTED, COMPLETED, REJECTED, FAILED
+    }
+    
+    private String ticketId;
+    private Status status;
+    private Long orderId;
+    private String message;
+    private LocalDateTime createdAt;
+    
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.REJECTED || status == Status.FAILED;
+    }
+    
+    public CheckoutTicketResponse with(Status newStatus, Long newOrderId, String newMessage) {
+        return new CheckoutTicketResponse(ticketId, newStatus, newOrderId, newMessage, createdAt);
+    }
+}
@@ -0,0 +1,22 @@
+package com.motosnap.workshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One keyset page of invoice payments, newest first. Pass nextCreatedAt and
+ * nextId back as beforeCreatedAt and beforeId to get the following page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoicePaymentFeedResponse {
+    private List<InvoicePaymentResponseDTO> payments;
+    private boolean hasMore;
+    private LocalDateTime nextCreatedAt;
+    private Long nextId;
+}
@@ -0,0 +1,47 @@
+package com.motosnap.workshop.dto;
+
+import com.motosnap.workshop.entity.InvoicePaymentStatus;
+import com.motosnap.workshop.entity.ReceiptStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat row for the admin payments list, filled by a single JPQL constructor
+ * expression in InvoicePaymentRepository. Receipt columns are null when no
+ * receipt has been uploaded; assignedMechanicName is null when unassigned.
+ */
+@Data
+@AllArgsConstructor
+public class InvoicePaymentRow {
+    private Long id;
+    private InvoicePaymentStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    private Long invoiceId;
+    private String invoiceNumber;
+    private BigDecimal serviceAmount;
+    private BigDecimal partsAmount;
+    private BigDecimal totalAmount;
+    private LocalDateTime generatedAt;
+
+    private Long bookingId;
+    private String customerName;
+    private String serviceName;
+    private String vehiclePlateNo;
+    private String vehicleBrand;
+    private String vehicleModel;
+    private LocalDateTime scheduledDateTime;
+    private String assignedMechanicName;
+
+    private Long receiptId;
+    private BigDecimal receiptAmount;
+    private String receiptFileUrl;
+    private String receiptNotes;
+    private String receiptAdminNotes;
+    private ReceiptStatus receiptStatus;
+    private LocalDateTime receiptUploadedAt;
+}
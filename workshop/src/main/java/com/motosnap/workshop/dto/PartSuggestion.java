@@ -0,0 +1,15 @@
+package com.motosnap.workshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartSuggestion {
+    private Long id;
+    private String partName;
+    private String partCode;
+    private Integer qty;
+}
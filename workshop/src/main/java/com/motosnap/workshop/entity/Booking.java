@@ -16,12 +16,36 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+    @Index(name = "idx_bookings_scheduled", columnList = "scheduled_date_time"),
+    @Index(name = "idx_bookings_status_scheduled", columnList = "status, scheduled_date_time"),
+    @Index(name = "idx_bookings_mechanic_scheduled", columnList = "assigned_mechanic_id, scheduled_date_time"),
+    @Index(name = "idx_bookings_user_scheduled", columnList = "user_id, scheduled_date_time"),
+    @Index(name = "idx_bookings_vehicle_scheduled", columnList = "vehicle_id, scheduled_date_time")
+})
+@NamedEntityGraph(
+    name = Booking.LISTING_GRAPH,
+    attributeNodes = {
+        @NamedAttributeNode("service"),
+        @NamedAttributeNode("vehicle"),
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode("assignedMechanic"),
+        @NamedAttributeNode(value = "invoice", subgraph = "invoice")
+    },
+    subgraphs = {
+        // The inverse one-to-one sides cannot be proxied, so they are joined here instead of selected per row
+        @NamedSubgraph(name = "invoice", attributeNodes = @NamedAttributeNode(value = "invoicePayment", subgraph = "invoicePayment")),
+        @NamedSubgraph(name = "invoicePayment", attributeNodes = @NamedAttributeNode("receipt"))
+    }
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Booking {
+
+    /** Everything BookingResponse reads, fetched with the booking in one select */
+    public static final String LISTING_GRAPH = "Booking.listing";
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -35,9 +36,15 @@ public class Inventory {
     @Column(length = 255)
     private String description;
     
-    @Column(nullable = false)
+    // Set on insert; afterwards only changed by StockService's conditional updates
+    @Column(nullable = false, updatable = false)
     private Integer qty = 0;
     
+    // Sum of active stock reservations; only changed by StockService's conditional updates
+    @ColumnDefault("0")
+    @Column(name = "reserved_qty", nullable = false, updatable = false)
+    private Integer reservedQty = 0;
+    
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal unitPrice;
     
@@ -90,6 +97,11 @@ public class Inventory {
         this.imageUrl = null;
     }
     
+    // Available to promise: on hand minus active reservations
+    public int getAvailableQty() {
+        return (qty != null ? qty : 0) - (reservedQty != null ? reservedQty : 0);
+    }
+    
     // Helper method to check if stock is low
     public boolean isLowStock() {
         return this.qty <= this.minStockLevel;
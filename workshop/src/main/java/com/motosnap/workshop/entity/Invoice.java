@@ -15,7 +15,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "invoices")
+@Table(name = "invoices", indexes = {
+    @Index(name = "idx_invoices_generated", columnList = "generated_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -23,7 +25,8 @@ import java.time.LocalDateTime;
 public class Invoice {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoices_seq")
+    @SequenceGenerator(name = "invoices_seq", sequenceName = "invoices_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, unique = true, length = 50)
@@ -0,0 +1,25 @@
+package com.motosnap.workshop.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Next unreserved invoice sequence number for one calendar year.
+ * Nodes reserve numbers from here in blocks; see InvoiceNumberAllocator.
+ */
+@Entity
+@Table(name = "invoice_number_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceNumberCounter {
+
+    @Id
+    @Column(name = "counter_year")
+    private Integer counterYear;
+
+    @Column(nullable = false)
+    private Long nextValue;
+}
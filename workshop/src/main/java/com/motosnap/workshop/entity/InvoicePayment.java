@@ -13,7 +13,10 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "invoice_payments")
+@Table(name = "invoice_payments", indexes = {
+    @Index(name = "idx_invoice_payments_created", columnList = "created_at"),
+    @Index(name = "idx_invoice_payments_status_created", columnList = "status, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -15,14 +15,19 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_created", columnList = "created_at"),
+    @Index(name = "idx_orders_status_created", columnList = "status, created_at"),
+    @Index(name = "idx_orders_user_created", columnList = "user_id, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     
     @Enumerated(EnumType.STRING)
@@ -13,7 +13,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "receipts")
+@Table(name = "receipts", indexes = {
+    @Index(name = "idx_receipts_uploaded", columnList = "uploaded_at"),
+    @Index(name = "idx_receipts_status_uploaded", columnList = "status, uploaded_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
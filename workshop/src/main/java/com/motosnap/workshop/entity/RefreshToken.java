@@ -0,0 +1,54 @@
+package com.motosnap.workshop.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+/**
+ * An issued refresh token, identified by its jti claim. Each token can be used
+ * once: refreshing marks it revoked and records the jti of the token that replaced it.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "idx_refresh_tokens_expires", columnList = "expires_at"),
+    @Index(name = "idx_refresh_tokens_revoked_expires", columnList = "revoked, expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore
+    private User user;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(nullable = false)
+    private Boolean revoked = false;
+
+    @Column(length = 36)
+    private String replacedBy;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    public RefreshToken(String jti, User user, LocalDateTime expiresAt) {
+        this.jti = jti;
+        this.user = user;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -12,7 +12,12 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "requests")
+@Table(name = "requests", indexes = {
+    @Index(name = "idx_requests_requested", columnList = "requested_at"),
+    @Index(name = "idx_requests_status_requested", columnList = "status, requested_at"),
+    @Index(name = "idx_requests_mechanic_requested", columnList = "mechanic_id, requested_at"),
+    @Index(name = "idx_requests_booking_requested", columnList = "booking_id, requested_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,7 +25,8 @@ import java.time.LocalDateTime;
 public class Request {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "requests_seq")
+    @SequenceGenerator(name = "requests_seq", sequenceName = "requests_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
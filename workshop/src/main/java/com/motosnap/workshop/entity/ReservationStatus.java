@@ -0,0 +1,7 @@
+package com.motosnap.workshop.entity;
+
+public enum ReservationStatus {
+    HELD,
+    COMMITTED,
+    RELEASED
+}
@@ -0,0 +1,65 @@
+package com.motosnap.workshop.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A hold on part stock for an order. While HELD the quantity counts against the
+ * part's available stock (Inventory.reservedQty). Approving the order commits the
+ * hold and takes the stock off hand; rejection or expiry releases it.
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+    @Index(name = "idx_stock_reservations_order_status", columnList = "order_id, status"),
+    @Index(name = "idx_stock_reservations_status_expires", columnList = "status, expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_reservations_seq")
+    @SequenceGenerator(name = "stock_reservations_seq", sequenceName = "stock_reservations_seq", allocationSize = 50)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "part_id", nullable = false)
+    private Inventory part;
+    
+    @Column(nullable = false)
+    private Integer qty;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ReservationStatus status = ReservationStatus.HELD;
+    
+    // Null while the order waits for payment review: the hold then lasts until approval or rejection
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+    
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+    
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+    
+    public StockReservation(Order order, Inventory part, Integer qty, LocalDateTime expiresAt) {
+        this.order = order;
+        this.part = part;
+        this.qty = qty;
+        this.status = ReservationStatus.HELD;
+        this.expiresAt = expiresAt;
+    }
+}
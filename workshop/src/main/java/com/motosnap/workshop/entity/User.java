@@ -16,7 +16,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_role_active", columnList = "role, active")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
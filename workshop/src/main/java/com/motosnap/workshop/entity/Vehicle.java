@@ -17,7 +17,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "vehicles")
+@Table(name = "vehicles", indexes = {
+    @Index(name = "idx_vehicles_user_created", columnList = "user_id, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -4,6 +4,8 @@ import com.motosnap.workshop.entity.Booking;
 import com.motosnap.workshop.entity.BookingStatus;
 import com.motosnap.workshop.entity.User;
 import com.motosnap.workshop.entity.Vehicle;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -16,40 +18,60 @@ import java.util.List;
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     
     // Find bookings by user (customer's bookings)
+    @EntityGraph(Booking.LISTING_GRAPH)
     List<Booking> findByUserOrderByScheduledDateTimeDesc(User user);
+    @EntityGraph(Booking.LISTING_GRAPH)
     List<Booking> findByUserAndStatusOrderByScheduledDateTimeDesc(User user, BookingStatus status);
     
     // Find bookings by mechanic
+    @EntityGraph(Booking.LISTING_GRAPH)
     List<Booking> findByAssignedMechanicOrderByScheduledDateTimeAsc(User mechanic);
+    @EntityGraph(Booking.LISTING_GRAPH)
     List<Booking> findByAssignedMechanicAndStatusOrderByScheduledDateTimeAsc(User mechanic, BookingStatus status);
     
     // Find bookings by status
+    @EntityGraph(Booking.LISTING_GRAPH)
     List<Booking> findByStatusOrderByScheduledDateTimeAsc(BookingStatus status);
     
     // Find bookings by date range
+    @EntityGraph(Booking.LISTING_GRAPH)
     List<Booking> findByScheduledDateTimeBetweenOrderByScheduledDateTimeAsc(LocalDateTime start, LocalDateTime end);
     
-    // Find today's bookings
-    @Query("SELECT b FROM Booking b WHERE DATE(b.scheduledDateTime) = CURRENT_DATE ORDER BY b.scheduledDateTime ASC")
-    List<Booking> findTodayBookings();
+    // Find one day's bookings: [dayStart, dayEnd) keeps scheduled_date_time indexable, unlike DATE(...)
+    @EntityGraph(Booking.LISTING_GRAPH)
+    @Query("SELECT b FROM Booking b WHERE b.scheduledDateTime >= :dayStart AND b.scheduledDateTime < :dayEnd " +
+           "ORDER BY b.scheduledDateTime ASC")
+    List<Booking> findTodayBookings(@Param("dayStart") LocalDateTime dayStart, @Param("dayEnd") LocalDateTime dayEnd);
     
     // Find upcoming bookings
+    @EntityGraph(Booking.LISTING_GRAPH)
     @Query("SELECT b FROM Booking b WHERE b.scheduledDateTime > CURRENT_TIMESTAMP AND b.status IN ('PENDING', 'CONFIRMED') ORDER BY b.scheduledDateTime ASC")
     List<Booking> findUpcomingBookings();
     
     // Find overdue bookings
+    @EntityGraph(Booking.LISTING_GRAPH)
     @Query("SELECT b FROM Booking b WHERE b.scheduledDateTime < CURRENT_TIMESTAMP AND b.status = 'CONFIRMED' ORDER BY b.scheduledDateTime ASC")
     List<Booking> findOverdueBookings();
     
     // Find bookings by vehicle
+    @EntityGraph(Booking.LISTING_GRAPH)
     List<Booking> findByVehicleOrderByScheduledDateTimeDesc(Vehicle vehicle);
     
     // Mechanic workload queries
     @Query("SELECT COUNT(b) FROM Booking b WHERE b.assignedMechanic.id = :mechanicId AND b.status IN ('CONFIRMED', 'IN_PROGRESS')")
     long countActivebookingsByMechanic(@Param("mechanicId") Long mechanicId);
     
-    @Query("SELECT b FROM Booking b WHERE b.assignedMechanic.id = :mechanicId AND DATE(b.scheduledDateTime) = CURRENT_DATE")
-    List<Booking> findTodayBookingsByMechanic(@Param("mechanicId") Long mechanicId);
+    @EntityGraph(Booking.LISTING_GRAPH)
+    @Query("SELECT b FROM Booking b WHERE b.assignedMechanic.id = :mechanicId " +
+           "AND b.scheduledDateTime >= :dayStart AND b.scheduledDateTime < :dayEnd")
+    List<Booking> findTodayBookingsByMechanic(@Param("mechanicId") Long mechanicId,
+                                              @Param("dayStart") LocalDateTime dayStart,
+                                              @Param("dayEnd") LocalDateTime dayEnd);
+    
+    // Id, start, service duration and mechanic of every booking holding time from the given moment on
+    @Query("SELECT b.id, b.scheduledDateTime, s.estimatedDurationMinutes, b.assignedMechanic.id FROM Booking b " +
+           "JOIN b.service s WHERE b.status IN ('PENDING', 'CONFIRMED', 'IN_PROGRESS') AND b.scheduledDateTime >= :from")
+    List<Object[]> findTimeHeldFrom(@Param("from") LocalDateTime from);
     
     // Statistics queries
     @Query("SELECT COUNT(b) FROM Booking b WHERE b.status = :status")
@@ -59,6 +81,30 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     long countBookingsBetweenDates(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
     
     // Find unassigned bookings
+    @EntityGraph(Booking.LISTING_GRAPH)
     @Query("SELECT b FROM Booking b WHERE b.assignedMechanic IS NULL AND b.status = 'CONFIRMED' ORDER BY b.scheduledDateTime ASC")
     List<Booking> findUnassignedBookings();
+    
+    // Unassigned confirmed bookings scheduled in [start, end), earliest first
+    @Query("SELECT b FROM Booking b WHERE b.assignedMechanic IS NULL AND b.status = 'CONFIRMED' " +
+           "AND b.scheduledDateTime >= :start AND b.scheduledDateTime < :end ORDER BY b.scheduledDateTime ASC, b.id ASC")
+    List<Booking> findUnassignedConfirmedBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    // All bookings with everything the listing reads, in insertion order like findAll()
+    @EntityGraph(Booking.LISTING_GRAPH)
+    @Query("SELECT b FROM Booking b ORDER BY b.id")
+    List<Booking> findAllForListing();
+    
+    // Keyset page of bookings, latest scheduled first. The cursor is the
+    // (scheduledDateTime, id) of the last booking of the previous page.
+    @EntityGraph(Booking.LISTING_GRAPH)
+    @Query("SELECT b FROM Booking b " +
+           "WHERE (:status IS NULL OR b.status = :status) " +
+           "AND (:beforeScheduledDateTime IS NULL OR b.scheduledDateTime < :beforeScheduledDateTime " +
+           "     OR (b.scheduledDateTime = :beforeScheduledDateTime AND b.id < :beforeId)) " +
+           "ORDER BY b.scheduledDateTime DESC, b.id DESC")
+    List<Booking> findListingPage(@Param("status") BookingStatus status,
+                                  @Param("beforeScheduledDateTime") LocalDateTime beforeScheduledDateTime,
+                                  @Param("beforeId") Long beforeId,
+                                  Pageable pageable);
 }
\ No newline at end of file
@@ -28,4 +28,12 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     
     @Query("SELECT COUNT(ci) FROM CartItem ci WHERE ci.cart.user.id = :userId")
     long countByUserId(@Param("userId") Long userId);
+    
+    // Lines of a cart as (itemId, inventoryId, quantity)
+    @Query("SELECT ci.id, ci.inventory.id, ci.quantity FROM CartItem ci WHERE ci.cart.id = :cartId")
+    List<Object[]> findLinesByCartId(@Param("cartId") Long cartId);
+    
+    // Quantity per part in a user's cart, as (inventoryId, quantity)
+    @Query("SELECT ci.inventory.id, SUM(ci.quantity) FROM CartItem ci WHERE ci.cart.user.email = :email GROUP BY ci.inventory.id")
+    List<Object[]> findQuantitiesByUserEmail(@Param("email") String email);
 }
\ No newline at end of file
@@ -2,7 +2,9 @@ package com.motosnap.workshop.repository;
 
 import com.motosnap.workshop.entity.Cart;
 import com.motosnap.workshop.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -19,6 +21,11 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.cartItems ci LEFT JOIN FETCH ci.inventory WHERE c.user.id = :userId")
     Optional<Cart> findByUserIdWithItems(@Param("userId") Long userId);
     
+    // Locks the cart row; everything that changes a cart's items takes this lock first
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cart c WHERE c.user.id = :userId")
+    Optional<Cart> findByUserIdForUpdate(@Param("userId") Long userId);
+    
     boolean existsByUserId(Long userId);
     
     void deleteByUserId(Long userId);
@@ -67,6 +67,9 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     
     List<Inventory> findByCategoryIgnoreCase(String category);
     
+    @Query("SELECT i FROM Inventory i WHERE LOWER(i.brand) = LOWER(:brand) AND i.deleted = false")
+    List<Inventory> findByBrandIgnoreCaseAndNotDeleted(@Param("brand") String brand);
+    
     // Find by category or brand
     List<Inventory> findByCategoryIgnoreCaseAndActiveTrue(String category);
     List<Inventory> findByBrandIgnoreCaseAndActiveTrue(String brand);
@@ -78,6 +81,14 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     @Query("SELECT i FROM Inventory i WHERE i.qty = 0 AND i.active = true AND i.deleted = false")
     List<Inventory> findOutOfStockParts();
     
+    // Available stock of every non-deleted part, as (id, qty - reservedQty)
+    @Query("SELECT i.id, i.qty - i.reservedQty FROM Inventory i WHERE i.deleted = false")
+    List<Object[]> findStockLevels();
+    
+    // Available stock of one part, empty when it is deleted
+    @Query("SELECT i.qty - i.reservedQty FROM Inventory i WHERE i.id = :id AND i.deleted = false")
+    Optional<Integer> findStockLevel(@Param("id") Long id);
+    
     // Get distinct categories and brands
     @Query("SELECT DISTINCT i.category FROM Inventory i WHERE i.active = true AND i.deleted = false AND i.category IS NOT NULL ORDER BY i.category")
     List<String> findDistinctCategories();
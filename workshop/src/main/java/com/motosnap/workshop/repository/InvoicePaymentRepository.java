@@ -1,8 +1,10 @@
 package com.motosnap.workshop.repository;
 
+import com.motosnap.workshop.dto.InvoicePaymentRow;
 import com.motosnap.workshop.entity.Invoice;
 import com.motosnap.workshop.entity.InvoicePayment;
 import com.motosnap.workshop.entity.InvoicePaymentStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -37,4 +39,26 @@ public interface InvoicePaymentRepository extends JpaRepository<InvoicePayment,
     // Find recent payments
     @Query("SELECT ip FROM InvoicePayment ip WHERE ip.createdAt >= :since ORDER BY ip.createdAt DESC")
     List<InvoicePayment> findRecentPayments(@Param("since") LocalDateTime since);
+    
+    // Admin payments list as flat rows: one joined query, newest first.
+    // since and beforeCreatedAt/beforeId are optional; the keyset cursor is the
+    // (createdAt, id) of the last row of the previous page.
+    @Query("SELECT new com.motosnap.workshop.dto.InvoicePaymentRow(" +
+           "ip.id, ip.status, ip.createdAt, ip.updatedAt, " +
+           "i.id, i.invoiceNumber, i.serviceAmount, i.partsAmount, i.totalAmount, i.generatedAt, " +
+           "b.id, u.name, s.name, v.plateNo, v.brand, v.model, b.scheduledDateTime, m.name, " +
+           "r.id, r.amount, r.fileUrl, r.notes, r.adminNotes, r.status, r.uploadedAt) " +
+           "FROM InvoicePayment ip " +
+           "JOIN ip.invoice i JOIN i.booking b JOIN b.user u JOIN b.service s JOIN b.vehicle v " +
+           "LEFT JOIN b.assignedMechanic m LEFT JOIN ip.receipt r " +
+           "WHERE ip.status IN :statuses " +
+           "AND (:since IS NULL OR ip.createdAt >= :since) " +
+           "AND (:beforeCreatedAt IS NULL OR ip.createdAt < :beforeCreatedAt " +
+           "     OR (ip.createdAt = :beforeCreatedAt AND ip.id < :beforeId)) " +
+           "ORDER BY ip.createdAt DESC, ip.id DESC")
+    List<InvoicePaymentRow> findPaymentRows(@Param("statuses") List<InvoicePaymentStatus> statuses,
+                                            @Param("since") LocalDateTime since,
+                                            @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                            @Param("beforeId") Long beforeId,
+                                            Pageable pageable);
 }
\ No newline at end of file
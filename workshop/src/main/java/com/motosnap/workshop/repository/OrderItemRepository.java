@@ -5,6 +5,7 @@ import com.motosnap.workshop.entity.Order;
 import com.motosnap.workshop.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,6 +16,10 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     // Find order items by order
     List<OrderItem> findByOrder(Order order);
     
+    // Order items with their parts, for rendering an order
+    @Query("SELECT oi FROM OrderItem oi JOIN FETCH oi.part WHERE oi.order.id = :orderId ORDER BY oi.id")
+    List<OrderItem> findByOrderIdWithPart(@Param("orderId") Long orderId);
+    
     // Find order items by part
     List<OrderItem> findByPart(Inventory part);
     
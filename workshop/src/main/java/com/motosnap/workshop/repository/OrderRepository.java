@@ -3,6 +3,8 @@ package com.motosnap.workshop.repository;
 import com.motosnap.workshop.entity.Order;
 import com.motosnap.workshop.entity.OrderStatus;
 import com.motosnap.workshop.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -39,6 +41,31 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT COUNT(o) FROM Order o WHERE o.createdAt BETWEEN :start AND :end")
     long countOrdersBetweenDates(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
     
+    // Admin order feed: page through order ids in the database, newest first,
+    // then load the page's orders with their items, parts and receipt in one query
+    @Query(value = "SELECT o.id FROM Order o WHERE (:status IS NULL OR o.status = :status) " +
+                   "AND (:fromDate IS NULL OR o.createdAt >= :fromDate) " +
+                   "AND (:toDate IS NULL OR o.createdAt < :toDate) " +
+                   "AND (:customer IS NULL OR LOWER(o.user.email) LIKE :customer OR LOWER(o.user.name) LIKE :customer) " +
+                   "ORDER BY o.createdAt DESC, o.id DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE (:status IS NULL OR o.status = :status) " +
+                        "AND (:fromDate IS NULL OR o.createdAt >= :fromDate) " +
+                        "AND (:toDate IS NULL OR o.createdAt < :toDate) " +
+                        "AND (:customer IS NULL OR LOWER(o.user.email) LIKE :customer OR LOWER(o.user.name) LIKE :customer)")
+    Page<Long> findAdminOrderIds(@Param("status") OrderStatus status,
+                                 @Param("fromDate") LocalDateTime fromDate,
+                                 @Param("toDate") LocalDateTime toDate,
+                                 @Param("customer") String customer,
+                                 Pageable pageable);
+    
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH oi.part " +
+           "LEFT JOIN FETCH o.receipt WHERE o.id IN :ids")
+    List<Order> findWithItemsAndReceiptByIdIn(@Param("ids") List<Long> ids);
+    
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH oi.part " +
+           "LEFT JOIN FETCH o.receipt ORDER BY o.createdAt DESC")
+    List<Order> findAllWithItemsAndReceipt();
+    
     // Find recent orders (last 30 days)
     @Query("SELECT o FROM Order o WHERE o.createdAt >= :thirtyDaysAgo ORDER BY o.createdAt DESC")
     List<Order> findRecentOrders(@Param("thirtyDaysAgo") LocalDateTime thirtyDaysAgo);
@@ -0,0 +1,40 @@
+package com.motosnap.workshop.repository;
+
+import com.motosnap.workshop.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+    
+    // Use a token once: only succeeds while it is still unrevoked
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revoked = true, r.replacedBy = :replacedBy WHERE r.jti = :jti AND r.revoked = false")
+    int revokeIfActive(@Param("jti") String jti, @Param("replacedBy") String replacedBy);
+    
+    // Active tokens of a user, as (jti, expiresAt)
+    @Query("SELECT r.jti, r.expiresAt FROM RefreshToken r WHERE r.user.id = :userId AND r.revoked = false")
+    List<Object[]> findActiveByUserId(@Param("userId") Long userId);
+    
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.user.id = :userId AND r.revoked = false")
+    int revokeAllByUserId(@Param("userId") Long userId);
+    
+    // Revoked tokens that could still be presented, as (jti, expiresAt, replacedBy)
+    @Query("SELECT r.jti, r.expiresAt, r.replacedBy FROM RefreshToken r WHERE r.revoked = true AND r.expiresAt > :now")
+    List<Object[]> findRevokedUnexpired(@Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.user.id = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+}
@@ -44,6 +44,6 @@ public interface RequestRepository extends JpaRepository<Request, Long> {
     List<Request> findByRequestedAtBetweenOrderByRequestedAtDesc(LocalDateTime start, LocalDateTime end);
     
     // Today's requests
-    @Query("SELECT r FROM Request r WHERE DATE(r.requestedAt) = CURRENT_DATE ORDER BY r.requestedAt DESC")
-    List<Request> findTodayRequests();
+    @Query("SELECT r FROM Request r WHERE r.requestedAt >= :dayStart AND r.requestedAt < :dayEnd ORDER BY r.requestedAt DESC")
+    List<Request> findTodayRequests(@Param("dayStart") LocalDateTime dayStart, @Param("dayEnd") LocalDateTime dayEnd);
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.motosnap.workshop.repository;
+
+import com.motosnap.workshop.entity.StockReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+    
+    // Active holds of an order, locked so approval, rejection and expiry cannot act on them twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.order.id = :orderId AND r.status = com.motosnap.workshop.entity.ReservationStatus.HELD")
+    List<StockReservation> findHeldByOrderIdForUpdate(@Param("orderId") Long orderId);
+    
+    // Active holds of an order that are due, locked like findHeldByOrderIdForUpdate
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.order.id = :orderId AND r.status = com.motosnap.workshop.entity.ReservationStatus.HELD " +
+           "AND r.expiresAt <= :now")
+    List<StockReservation> findExpiredByOrderIdForUpdate(@Param("orderId") Long orderId, @Param("now") LocalDateTime now);
+    
+    boolean existsByOrderId(Long orderId);
+    
+    // Orders with holds that expire before the given time, as (orderId, earliest expiry)
+    @Query("SELECT r.order.id, MIN(r.expiresAt) FROM StockReservation r " +
+           "WHERE r.status = com.motosnap.workshop.entity.ReservationStatus.HELD AND r.expiresAt < :before " +
+           "GROUP BY r.order.id")
+    List<Object[]> findExpiringOrders(@Param("before") LocalDateTime before);
+}
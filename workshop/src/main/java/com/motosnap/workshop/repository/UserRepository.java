@@ -40,4 +40,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByNameContainingIgnoreCaseOrEmailContainingIgnoreCase(String name, String email);
     
     long countByRole(Role role);
+    
+    @Query("SELECT u.id FROM User u WHERE u.role = :role AND u.active = true ORDER BY u.id")
+    List<Long> findActiveIdsByRole(@Param("role") Role role);
 }
\ No newline at end of file
@@ -0,0 +1,491 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.entity.Booking;
+import com.motosnap.workshop.entity.BookingStatus;
+import com.motosnap.workshop.entity.Role;
+import com.motosnap.workshop.repository.BookingRepository;
+import com.motosnap.workshop.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Workshop time held by bookings, kept in memory per day so free slots can be
+ * listed and conflicting bookings refused without querying bookings.
+ *
+ * The opening hours of a day are cut into slots of booking.availability.slot-minutes.
+ * Each day keeps the number of bookings in every slot and, per assigned mechanic,
+ * a bitmap of the slots they are booked for. A booking fits when none of its slots
+ * is at capacity and its mechanic (if any) is free for all of them. Capacity is the
+ * number of bays, or the number of active mechanics when there are fewer of them.
+ * Counting bookings per slot is enough for the bays: intervals that never exceed
+ * the bay count at any moment can always be given a bay each.
+ *
+ * A booking's time is taken as soon as it is checked, under the write lock, so two
+ * requests cannot both get the last bay; it is given back if the transaction rolls
+ * back. Time is freed when a completed or cancelled booking commits. The days are
+ * reloaded from the database at startup and every rebuild interval, which also
+ * drops past days. Bookings that are still pending, or that commit, roll back or are
+ * released while the rebuild reads, keep the placement they have in memory rather
+ * than the one read. The check only sees bookings made through this node.
+ *
+ * Each day also orders its mechanics by booked minutes (a TreeSet used as a priority
+ * queue that is updated as bookings are placed and freed), so the least loaded
+ * mechanic who is free for a booking is found without counting anyone's bookings.
+ */
+@Component
+public class BookingAvailability {
+
+    private final BookingRepository bookingRepository;
+    private final UserRepository userRepository;
+    private final int slotMinutes;
+    private final LocalTime opensAt;
+    private final int slotsPerDay;
+    private final int bays;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<LocalDate, Day> days = new HashMap<>();
+    private Map<Long, Placement> placements = new HashMap<>();
+    // Bookings held by transactions that have not finished, with their previous placement
+    private final Map<Long, Placement> pending = new HashMap<>();
+    // Active mechanics, in id order
+    private Set<Long> mechanicIds = new LinkedHashSet<>();
+    private int capacity;
+    // Bookings settled, restored or released while a rebuild reads the database; null otherwise
+    private Set<Long> touchedDuringRebuild;
+    private boolean mechanicsReloadedDuringRebuild;
+
+    private volatile boolean ready;
+
+    public BookingAvailability(BookingRepository bookingRepository,
+                               UserRepository userRepository,
+                               @Value("${booking.availability.slot-minutes:15}") int slotMinutes,
+                               @Value("${booking.availability.opens-at:08:00}") String opensAt,
+                               @Value("${booking.availability.closes-at:18:00}") String closesAt,
+                               @Value("${booking.availability.bays:4}") int bays) {
+        this.bookingRepository = bookingRepository;
+        this.userRepository = userRepository;
+        this.slotMinutes = Math.max(1, slotMinutes);
+        this.opensAt = LocalTime.parse(opensAt);
+        long openMinutes = Duration.between(this.opensAt, LocalTime.parse(closesAt)).toMinutes();
+        this.slotsPerDay = (int) Math.max(0, openMinutes / this.slotMinutes);
+        this.bays = bays;
+        this.capacity = bays;
+    }
+
+    /**
+     * Whether a booking in this status occupies its time.
+     */
+    public static boolean holdsTime(BookingStatus status) {
+        return status == BookingStatus.PENDING
+            || status == BookingStatus.CONFIRMED
+            || status == BookingStatus.IN_PROGRESS;
+    }
+
+    @PostConstruct
+    @Scheduled(initialDelayString = "${booking.availability.rebuild-interval-ms:3600000}",
+               fixedDelayString = "${booking.availability.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            touchedDuringRebuild = new HashSet<>();
+            mechanicsReloadedDuringRebuild = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Object[]> rows;
+        List<Long> mechanics;
+        try {
+            rows = bookingRepository.findTimeHeldFrom(LocalDate.now().atStartOfDay());
+            mechanics = userRepository.findActiveIdsByRole(Role.MECHANIC);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                touchedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        Map<Long, Placement> loaded = new HashMap<>();
+        for (Object[] row : rows) {
+            Placement placement = placementOf((LocalDateTime) row[1], durationOf((Number) row[2]),
+                (Long) row[3], false);
+            if (placement != null) {
+                loaded.put((Long) row[0], placement);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            // Bookings still being written, or changed since the read started, keep the placement they have
+            touchedDuringRebuild.addAll(pending.keySet());
+            for (Long id : touchedDuringRebuild) {
+                loaded.remove(id);
+                Placement current = placements.get(id);
+                if (current != null) {
+                    loaded.put(id, current);
+                }
+            }
+            touchedDuringRebuild = null;
+            placements = new HashMap<>();
+            days = new HashMap<>();
+            for (Map.Entry<Long, Placement> entry : loaded.entrySet()) {
+                place(entry.getKey(), entry.getValue());
+            }
+            if (!mechanicsReloadedDuringRebuild) {
+                setMechanics(mechanics);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("DEBUG: Booking availability loaded for " + loaded.size() + " bookings");
+    }
+
+    /**
+     * Reload the active mechanics once the transaction commits, after one is added,
+     * removed or changes role.
+     */
+    public void reloadMechanicsAfterCommit() {
+        TransactionHooks.afterCommit(() -> {
+            List<Long> mechanics = userRepository.findActiveIdsByRole(Role.MECHANIC);
+            lock.writeLock().lock();
+            try {
+                setMechanics(mechanics);
+                mechanicsReloadedDuringRebuild = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void setMechanics(List<Long> mechanics) {
+        mechanicIds = new LinkedHashSet<>(mechanics);
+        capacity = mechanics.isEmpty() ? bays : Math.min(bays, mechanics.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int getSlotMinutes() {
+        return slotMinutes;
+    }
+
+    /**
+     * Start times on the given day at which a job of the given length fits, in order.
+     * With a mechanic, only times at which that mechanic is free too.
+     */
+    public List<LocalDateTime> findFreeStarts(LocalDate date, int durationMinutes, Long mechanicId) {
+        int needed = Math.max(1, ceilDiv(durationMinutes, slotMinutes));
+        LocalDateTime dayStart = date.atTime(opensAt);
+        List<LocalDateTime> starts = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Day day = days.get(date);
+            BitSet busy = day != null && mechanicId != null ? day.mechanicBusy.get(mechanicId) : null;
+            int run = 0;
+            for (int slot = 0; slot < slotsPerDay; slot++) {
+                boolean free = (day == null || day.load[slot] < capacity) && (busy == null || !busy.get(slot));
+                run = free ? run + 1 : 0;
+                if (run >= needed) {
+                    starts.add(dayStart.plusMinutes((long) (slot - needed + 1) * slotMinutes));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return starts;
+    }
+
+    /**
+     * Take the booking's time, or move it to the booking's current time and mechanic.
+     * Fails when a slot is at capacity or the mechanic is booked elsewhere. New bookings
+     * must also fit within opening hours. The change is undone if the transaction rolls back.
+     */
+    public void hold(Booking booking, boolean newBooking) {
+        Long id = booking.getId();
+        Long mechanicId = booking.getAssignedMechanic() != null ? booking.getAssignedMechanic().getId() : null;
+        Placement placement = placementOf(booking.getScheduledDateTime(),
+            durationOf(booking.getService().getEstimatedDurationMinutes()), mechanicId, newBooking);
+        boolean first;
+        lock.writeLock().lock();
+        try {
+            Placement previous = unplace(id);
+            String conflict = placement != null ? conflict(placement) : null;
+            if (conflict != null) {
+                if (previous != null) {
+                    place(id, previous);
+                }
+                throw new RuntimeException(conflict);
+            }
+            if (placement != null) {
+                place(id, placement);
+            }
+            first = markPending(id, previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (first) {
+            registerHooks(id);
+        }
+    }
+
+    /**
+     * Give a held booking without a mechanic to the active mechanic with the fewest
+     * booked minutes that day who is free for the whole booking (ties go to the lower
+     * id). Returns the mechanic's id, or null when nobody is free; the booking then
+     * keeps its time without a mechanic. Undone if the transaction rolls back.
+     */
+    public Long holdWithLeastLoadedMechanic(Long bookingId) {
+        Long mechanicId;
+        boolean first;
+        lock.writeLock().lock();
+        try {
+            Placement current = placements.get(bookingId);
+            if (current == null || current.mechanicId() != null) {
+                return null;
+            }
+            mechanicId = leastLoadedFreeMechanic(current);
+            if (mechanicId == null) {
+                return null;
+            }
+            unplace(bookingId);
+            place(bookingId, new Placement(current.day(), current.first(), current.last(), mechanicId));
+            first = markPending(bookingId, current);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (first) {
+            registerHooks(bookingId);
+        }
+        return mechanicId;
+    }
+
+    /**
+     * Free a booking's time once the transaction commits.
+     */
+    public void releaseAfterCommit(Long bookingId) {
+        TransactionHooks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                unplace(bookingId);
+                touched(bookingId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Callers hold the write lock. Returns true the first time the booking is touched
+     * by a transaction, when the caller must register the hooks.
+     */
+    private boolean markPending(Long id, Placement previous) {
+        if (pending.containsKey(id)) {
+            return false;
+        }
+        pending.put(id, previous);
+        return true;
+    }
+
+    /**
+     * Callers hold the write lock.
+     */
+    private void touched(Long id) {
+        if (touchedDuringRebuild != null) {
+            touchedDuringRebuild.add(id);
+        }
+    }
+
+    private void registerHooks(Long id) {
+        TransactionHooks.afterRollback(() -> restore(id));
+        TransactionHooks.afterCommit(() -> settle(id));
+    }
+
+    /**
+     * Mechanics without bookings that day come first, then the day's queue in order
+     * of booked slots. Callers hold the lock.
+     */
+    private Long leastLoadedFreeMechanic(Placement placement) {
+        Day day = days.get(placement.day());
+        for (Long mechanicId : mechanicIds) {
+            if (day == null || !day.bookedSlots.containsKey(mechanicId)) {
+                return mechanicId;
+            }
+        }
+        for (MechanicLoad load : day.byLoad) {
+            if (!mechanicIds.contains(load.mechanicId())) {
+                continue;
+            }
+            BitSet busy = day.mechanicBusy.get(load.mechanicId());
+            int slot = busy.nextSetBit(placement.first());
+            if (slot < 0 || slot >= placement.last()) {
+                return load.mechanicId();
+            }
+        }
+        return null;
+    }
+
+    private void restore(Long id) {
+        lock.writeLock().lock();
+        try {
+            Placement previous = pending.remove(id);
+            unplace(id);
+            if (previous != null) {
+                place(id, previous);
+            }
+            touched(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void settle(Long id) {
+        lock.writeLock().lock();
+        try {
+            pending.remove(id);
+            touched(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Why the placement does not fit, or null when it does. Callers hold the lock.
+     */
+    private String conflict(Placement placement) {
+        Day day = days.get(placement.day());
+        if (day == null) {
+            return null;
+        }
+        for (int slot = placement.first(); slot < placement.last(); slot++) {
+            if (day.load[slot] >= capacity) {
+                return "The workshop is fully booked at " + slotTime(slot);
+            }
+        }
+        if (placement.mechanicId() != null) {
+            BitSet busy = day.mechanicBusy.get(placement.mechanicId());
+            int slot = busy != null ? busy.nextSetBit(placement.first()) : -1;
+            if (slot >= 0 && slot < placement.last()) {
+                return "The mechanic is already booked at " + slotTime(slot);
+            }
+        }
+        return null;
+    }
+
+    private void place(Long id, Placement placement) {
+        Day day = days.computeIfAbsent(placement.day(), date -> new Day(slotsPerDay));
+        for (int slot = placement.first(); slot < placement.last(); slot++) {
+            day.load[slot]++;
+        }
+        if (placement.mechanicId() != null) {
+            day.mechanicBusy.computeIfAbsent(placement.mechanicId(), mechanic -> new BitSet(slotsPerDay))
+                .set(placement.first(), placement.last());
+            day.addLoad(placement.mechanicId(), placement.last() - placement.first());
+        }
+        placements.put(id, placement);
+    }
+
+    private Placement unplace(Long id) {
+        Placement placement = placements.remove(id);
+        if (placement == null) {
+            return null;
+        }
+        Day day = days.get(placement.day());
+        for (int slot = placement.first(); slot < placement.last(); slot++) {
+            day.load[slot]--;
+        }
+        if (placement.mechanicId() != null) {
+            BitSet busy = day.mechanicBusy.get(placement.mechanicId());
+            busy.clear(placement.first(), placement.last());
+            if (busy.isEmpty()) {
+                day.mechanicBusy.remove(placement.mechanicId());
+            }
+            day.addLoad(placement.mechanicId(), placement.first() - placement.last());
+        }
+        return placement;
+    }
+
+    /**
+     * The slots a booking covers, or null when it lies entirely outside opening hours.
+     * Partly covered slots count as taken.
+     */
+    private Placement placementOf(LocalDateTime start, int durationMinutes, Long mechanicId, boolean withinHours) {
+        LocalDate date = start.toLocalDate();
+        long from = Duration.between(date.atTime(opensAt), start).toMinutes();
+        long to = from + durationMinutes;
+        if (withinHours && (from < 0 || to > (long) slotsPerDay * slotMinutes)) {
+            throw new RuntimeException("Booking must start and finish within opening hours ("
+                + opensAt + " - " + opensAt.plusMinutes((long) slotsPerDay * slotMinutes) + ")");
+        }
+        int first = (int) Math.max(0, Math.floorDiv(from, (long) slotMinutes));
+        int last = (int) Math.min(slotsPerDay, Math.max(0, ceilDiv(to, slotMinutes)));
+        return first < last ? new Placement(date, first, last, mechanicId) : null;
+    }
+
+    private LocalTime slotTime(int slot) {
+        return opensAt.plusMinutes((long) slot * slotMinutes);
+    }
+
+    private static int durationOf(Number estimatedDurationMinutes) {
+        return estimatedDurationMinutes != null && estimatedDurationMinutes.intValue() > 0
+            ? estimatedDurationMinutes.intValue() : 60;
+    }
+
+    private static int ceilDiv(long value, int divisor) {
+        return (int) -Math.floorDiv(-value, (long) divisor);
+    }
+
+    private record Placement(LocalDate day, int first, int last, Long mechanicId) {
+    }
+
+    private record MechanicLoad(long mechanicId, int slots) {
+    }
+
+    private static final class Day {
+        private static final Comparator<MechanicLoad> LEAST_LOADED =
+            Comparator.comparingInt(MechanicLoad::slots).thenComparingLong(MechanicLoad::mechanicId);
+
+        private final int[] load;
+        private final Map<Long, BitSet> mechanicBusy = new HashMap<>();
+        // Booked slots per mechanic, and the same mechanics ordered by them
+        private final Map<Long, Integer> bookedSlots = new HashMap<>();
+        private final TreeSet<MechanicLoad> byLoad = new TreeSet<>(LEAST_LOADED);
+
+        Day(int slots) {
+            this.load = new int[slots];
+        }
+
+        void addLoad(long mechanicId, int delta) {
+            Integer before = bookedSlots.get(mechanicId);
+            int after = (before != null ? before : 0) + delta;
+            if (before != null) {
+                byLoad.remove(new MechanicLoad(mechanicId, before));
+            }
+            if (after > 0) {
+                bookedSlots.put(mechanicId, after);
+                byLoad.add(new MechanicLoad(mechanicId, after));
+            } else {
+                bookedSlots.remove(mechanicId);
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.motosnap.workshop.service;
 
+import com.motosnap.workshop.dto.BookingAvailabilityResponse;
+import com.motosnap.workshop.dto.BookingFeedResponse;
 import com.motosnap.workshop.dto.BookingRequest;
 import com.motosnap.workshop.dto.BookingResponse;
 import com.motosnap.workshop.dto.BookingStatusUpdateRequest;
@@ -7,11 +9,14 @@ import com.motosnap.workshop.dto.InvoiceResponse;
 import com.motosnap.workshop.entity.*;
 import com.motosnap.workshop.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -19,6 +24,9 @@ import java.util.stream.Collectors;
 @Transactional
 public class BookingService {
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private BookingRepository bookingRepository;
 
@@ -34,6 +42,12 @@ public class BookingService {
     @Autowired
     private InvoiceService invoiceService;
 
+    @Autowired
+    private BookingAvailability bookingAvailability;
+
+    @Autowired
+    private MechanicAssignmentService mechanicAssignmentService;
+
     public BookingResponse createBooking(String userEmail, BookingRequest request) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -64,9 +78,32 @@ public class BookingService {
         );
 
         booking = bookingRepository.save(booking);
+        bookingAvailability.hold(booking, true);
         return convertToBookingResponse(booking);
     }
 
+    /**
+     * Start times at which the service can be booked on the given day, optionally
+     * only those at which a particular mechanic is free. Times already past are left out.
+     */
+    @Transactional(readOnly = true)
+    public BookingAvailabilityResponse getAvailability(Long serviceId, LocalDate date, Long mechanicId) {
+        com.motosnap.workshop.entity.Service service = serviceRepository.findById(serviceId)
+                .orElseThrow(() -> new RuntimeException("Service not found"));
+        if (!service.getActive()) {
+            throw new RuntimeException("Service is not available");
+        }
+
+        int duration = service.getEstimatedDurationMinutes() != null ? service.getEstimatedDurationMinutes() : 60;
+        LocalDateTime now = LocalDateTime.now();
+        List<LocalDateTime> starts = bookingAvailability.findFreeStarts(date, duration, mechanicId).stream()
+                .filter(start -> start.isAfter(now))
+                .collect(Collectors.toList());
+        return new BookingAvailabilityResponse(serviceId, date, duration,
+                bookingAvailability.getSlotMinutes(), starts);
+    }
+
+    @Transactional(readOnly = true)
     public List<BookingResponse> getUserBookings(String userEmail) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -77,13 +114,44 @@ public class BookingService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<BookingResponse> getAllBookings() {
-        List<Booking> bookings = bookingRepository.findAll();
+        List<Booking> bookings = bookingRepository.findAllForListing();
         return bookings.stream()
                 .map(this::convertToBookingResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * One keyset page of bookings, latest scheduled first, optionally by status.
+     * Pass the scheduledDateTime and id of the last booking of the previous page,
+     * or nulls for the first page.
+     */
+    @Transactional(readOnly = true)
+    public BookingFeedResponse getBookingsPage(BookingStatus status, LocalDateTime beforeScheduledDateTime,
+                                               Long beforeId, int size) {
+        if ((beforeScheduledDateTime == null) != (beforeId == null)) {
+            throw new RuntimeException("beforeScheduledDateTime and beforeId must be given together");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // One extra row tells whether another page exists without a count query
+        List<Booking> bookings = bookingRepository.findListingPage(
+                status, beforeScheduledDateTime, beforeId, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = bookings.size() > pageSize;
+        if (hasMore) {
+            bookings = bookings.subList(0, pageSize);
+        }
+        List<BookingResponse> responses = bookings.stream()
+                .map(this::convertToBookingResponse)
+                .collect(Collectors.toList());
+        Booking last = hasMore ? bookings.get(bookings.size() - 1) : null;
+        return new BookingFeedResponse(responses, hasMore,
+                last != null ? last.getScheduledDateTime() : null,
+                last != null ? last.getId() : null);
+    }
+
+    @Transactional(readOnly = true)
     public List<BookingResponse> getBookingsByStatus(BookingStatus status) {
         List<Booking> bookings = bookingRepository.findByStatusOrderByScheduledDateTimeAsc(status);
         return bookings.stream()
@@ -91,13 +159,16 @@ public class BookingService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<BookingResponse> getTodayBookings() {
-        List<Booking> bookings = bookingRepository.findTodayBookings();
+        LocalDate today = LocalDate.now();
+        List<Booking> bookings = bookingRepository.findTodayBookings(today.atStartOfDay(), today.plusDays(1).atStartOfDay());
         return bookings.stream()
                 .map(this::convertToBookingResponse)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<BookingResponse> getUpcomingBookings() {
         List<Booking> bookings = bookingRepository.findUpcomingBookings();
         return bookings.stream()
@@ -105,6 +176,7 @@ public class BookingService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public BookingResponse getBookingById(Long bookingId) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
@@ -116,6 +188,7 @@ public class BookingService {
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
 
         BookingStatus oldStatus = booking.getStatus();
+        Long oldMechanicId = mechanicIdOf(booking);
         booking.setStatus(request.getStatus());
         
         // Set status notes if provided
@@ -157,10 +230,29 @@ public class BookingService {
             booking.setAssignedMechanic(mechanic);
         }
 
+        // Reopened bookings and new mechanics must still fit; finished ones free their time
+        if (BookingAvailability.holdsTime(booking.getStatus())) {
+            if (!BookingAvailability.holdsTime(oldStatus) || !Objects.equals(oldMechanicId, mechanicIdOf(booking))) {
+                bookingAvailability.hold(booking, false);
+            }
+        } else if (BookingAvailability.holdsTime(oldStatus)) {
+            bookingAvailability.releaseAfterCommit(booking.getId());
+            if (mechanicIdOf(booking) != null) {
+                mechanicAssignmentService.rebalanceAfterCommit(booking.getScheduledDateTime().toLocalDate());
+            }
+        }
+
+        // Confirmed without a mechanic: the least loaded one who is free takes it
+        if (booking.getStatus() == BookingStatus.CONFIRMED && booking.getAssignedMechanic() == null
+                && !mechanicAssignmentService.autoAssign(booking)) {
+            System.out.println("DEBUG: No mechanic free for booking " + booking.getId() + ", left unassigned");
+        }
+
         booking = bookingRepository.save(booking);
         return convertToBookingResponse(booking);
     }
 
+    @Transactional(readOnly = true)
     public List<BookingResponse> getMechanicBookings(String mechanicEmail) {
         User mechanic = userRepository.findByEmail(mechanicEmail)
                 .orElseThrow(() -> new RuntimeException("Mechanic not found"));
@@ -182,11 +274,19 @@ public class BookingService {
             throw new RuntimeException("User is not a mechanic");
         }
 
+        Long oldMechanicId = mechanicIdOf(booking);
         booking.setAssignedMechanic(mechanic);
+        if (BookingAvailability.holdsTime(booking.getStatus()) && !Objects.equals(oldMechanicId, mechanicId)) {
+            bookingAvailability.hold(booking, false);
+        }
         booking = bookingRepository.save(booking);
         return convertToBookingResponse(booking);
     }
 
+    private static Long mechanicIdOf(Booking booking) {
+        return booking.getAssignedMechanic() != null ? booking.getAssignedMechanic().getId() : null;
+    }
+
     private BookingResponse convertToBookingResponse(Booking booking) {
         BookingResponse response = new BookingResponse();
         
@@ -3,6 +3,7 @@ package com.motosnap.workshop.service;
 import com.motosnap.workshop.dto.CartItemRequest;
 import com.motosnap.workshop.dto.CartResponse;
 import com.motosnap.workshop.dto.CartItemResponse;
+import com.motosnap.workshop.dto.CartUpdateRequest;
 import com.motosnap.workshop.dto.InventoryResponse;
 import com.motosnap.workshop.entity.*;
 import com.motosnap.workshop.repository.*;
@@ -11,7 +12,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -31,7 +35,17 @@ public class CartService {
     @Autowired
     private InventoryRepository inventoryRepository;
 
+    @Autowired
+    private StockAvailability stockAvailability;
+
+    @Autowired
+    private CartStore cartStore;
+
     public CartResponse getUserCart(String userEmail) {
+        if (cartStore.isEnabled()) {
+            return cartStore.withCart(userEmail, this::convertToCartResponse);
+        }
+
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -42,36 +56,49 @@ public class CartService {
     }
 
     public CartResponse addItemToCart(String userEmail, CartItemRequest request) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        checkStock(request.getInventoryId(), request.getQuantity());
 
-        Inventory inventory = inventoryRepository.findById(request.getInventoryId())
-                .orElseThrow(() -> new RuntimeException("Inventory item not found"));
-
-        if (inventory.getQty() < request.getQuantity()) {
-            throw new RuntimeException("Insufficient stock. Available: " + inventory.getQty());
+        if (cartStore.isEnabled()) {
+            return cartStore.withCart(userEmail, cart -> {
+                CartStore.Line line = cart.findByInventoryId(request.getInventoryId());
+                if (line != null) {
+                    int newQuantity = line.getQuantity() + request.getQuantity();
+                    checkStock(request.getInventoryId(), newQuantity);
+                    cart.setQuantity(line, newQuantity);
+                } else {
+                    Inventory inventory = inventoryRepository.findById(request.getInventoryId())
+                            .orElseThrow(() -> new RuntimeException("Inventory item not found"));
+                    cart.addLine(cartStore.nextItemId(), inventory.getId(), request.getQuantity(),
+                            inventory.getUnitPrice().doubleValue(), convertToInventoryResponse(inventory));
+                }
+                return convertToCartResponse(cart);
+            });
         }
 
-        Cart cart = cartRepository.findByUser(user)
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        // Checkout locks the cart row as well, so it never sees a change half made
+        Cart cart = cartRepository.findByUserIdForUpdate(user.getId())
                 .orElseGet(() -> createNewCart(user));
 
         // Check if item already exists in cart
         Optional<CartItem> existingItem = cartItemRepository
-                .findByCartIdAndInventoryId(cart.getId(), inventory.getId());
+                .findByCartIdAndInventoryId(cart.getId(), request.getInventoryId());
 
         if (existingItem.isPresent()) {
             // Update existing item quantity
             CartItem cartItem = existingItem.get();
             int newQuantity = cartItem.getQuantity() + request.getQuantity();
             
-            if (inventory.getQty() < newQuantity) {
-                throw new RuntimeException("Insufficient stock. Available: " + inventory.getQty());
-            }
+            checkStock(request.getInventoryId(), newQuantity);
             
             cartItem.setQuantity(newQuantity);
             cartItemRepository.save(cartItem);
         } else {
-            // Add new item to cart
+            // Add new item to cart; the part itself is only needed for its price
+            Inventory inventory = inventoryRepository.findById(request.getInventoryId())
+                    .orElseThrow(() -> new RuntimeException("Inventory item not found"));
             CartItem cartItem = new CartItem();
             cartItem.setCart(cart);
             cartItem.setInventory(inventory);
@@ -85,17 +112,30 @@ public class CartService {
     }
 
     public CartResponse removeItemFromCart(String userEmail, Long itemId) {
+        if (cartStore.isEnabled()) {
+            return cartStore.withCart(userEmail, cart -> {
+                CartStore.Line line = cart.getLine(itemId);
+                if (line == null) {
+                    throw new RuntimeException("Cart item not found");
+                }
+                cart.removeLine(line);
+                return convertToCartResponse(cart);
+            });
+        }
+
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        Cart cart = cartRepository.findByUserIdForUpdate(user.getId())
+                .orElseThrow(() -> new RuntimeException("Cart item not found"));
+
         CartItem cartItem = cartItemRepository.findById(itemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
 
-        if (!cartItem.getCart().getUser().getId().equals(user.getId())) {
+        if (!cartItem.getCart().getId().equals(cart.getId())) {
             throw new RuntimeException("Unauthorized to remove this item");
         }
 
-        Cart cart = cartItem.getCart();
         cartItemRepository.delete(cartItem);
 
         cart = cartRepository.findById(cart.getId()).orElseThrow();
@@ -103,30 +143,226 @@ public class CartService {
     }
 
     public CartResponse updateCartItemQuantity(String userEmail, Long cartItemId, Integer newQuantity) {
+        if (cartStore.isEnabled()) {
+            return cartStore.withCart(userEmail, cart -> {
+                CartStore.Line line = cart.getLine(cartItemId);
+                if (line == null) {
+                    throw new RuntimeException("Cart item not found");
+                }
+                checkStock(line.getInventoryId(), newQuantity);
+                cart.setQuantity(line, newQuantity);
+                return convertToCartResponse(cart);
+            });
+        }
+
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        Cart cart = cartRepository.findByUserIdForUpdate(user.getId())
+                .orElseThrow(() -> new RuntimeException("Cart item not found"));
+
         CartItem cartItem = cartItemRepository.findById(cartItemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
 
-        if (!cartItem.getCart().getUser().getId().equals(user.getId())) {
+        if (!cartItem.getCart().getId().equals(cart.getId())) {
             throw new RuntimeException("Unauthorized to update this cart item");
         }
 
         // Check if there's enough inventory
-        Inventory inventory = cartItem.getInventory();
-        if (inventory.getQty() < newQuantity) {
-            throw new RuntimeException("Insufficient stock. Available: " + inventory.getQty());
-        }
+        checkStock(cartItem.getInventory().getId(), newQuantity);
 
         cartItem.setQuantity(newQuantity);
         cartItemRepository.save(cartItem);
 
-        Cart cart = cartItem.getCart();
         cart = cartRepository.findById(cart.getId()).orElseThrow();
         return convertToCartResponse(cart);
     }
 
+    /**
+     * Apply several add / set / remove operations at once. The resulting quantities are
+     * checked before anything changes, so either every operation applies or none does,
+     * and the cart is rendered once.
+     */
+    public CartResponse updateCart(String userEmail, CartUpdateRequest request) {
+        if (cartStore.isEnabled()) {
+            return cartStore.withCart(userEmail, cart -> {
+                Map<Long, Integer> current = new LinkedHashMap<>();
+                Map<Long, Long> inventoryIdByItemId = new HashMap<>();
+                for (CartStore.Line line : cart.getLines()) {
+                    current.put(line.getInventoryId(), line.getQuantity());
+                    inventoryIdByItemId.put(line.getItemId(), line.getInventoryId());
+                }
+                Map<Long, Integer> target = applyOperations(current, inventoryIdByItemId, request.getOperations());
+                Map<Long, Inventory> newParts = checkCartChanges(current, target);
+
+                for (Map.Entry<Long, Integer> line : current.entrySet()) {
+                    Integer quantity = target.get(line.getKey());
+                    if (quantity == null) {
+                        cart.removeLine(cart.findByInventoryId(line.getKey()));
+                    } else if (!quantity.equals(line.getValue())) {
+                        cart.setQuantity(cart.findByInventoryId(line.getKey()), quantity);
+                    }
+                }
+                for (Inventory inventory : newParts.values()) {
+                    cart.addLine(cartStore.nextItemId(), inventory.getId(), target.get(inventory.getId()),
+                            inventory.getUnitPrice().doubleValue(), convertToInventoryResponse(inventory));
+                }
+                return convertToCartResponse(cart);
+            });
+        }
+
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        // Lock the cart like the other writers, then load its items and parts in one query
+        // so rendering the cart does not load them one by one
+        Cart cart = cartRepository.findByUserIdForUpdate(user.getId())
+                .map(locked -> cartRepository.findByUserIdWithItems(user.getId()).orElse(locked))
+                .orElseGet(() -> createNewCart(user));
+
+        Map<Long, Integer> current = new LinkedHashMap<>();
+        Map<Long, Long> inventoryIdByItemId = new HashMap<>();
+        Map<Long, CartItem> itemsByInventoryId = new HashMap<>();
+        for (CartItem cartItem : cart.getCartItems()) {
+            Long inventoryId = cartItem.getInventory().getId();
+            current.put(inventoryId, cartItem.getQuantity());
+            inventoryIdByItemId.put(cartItem.getId(), inventoryId);
+            itemsByInventoryId.put(inventoryId, cartItem);
+        }
+        Map<Long, Integer> target = applyOperations(current, inventoryIdByItemId, request.getOperations());
+        Map<Long, Inventory> newParts = checkCartChanges(current, target);
+
+        for (Map.Entry<Long, Integer> line : current.entrySet()) {
+            CartItem cartItem = itemsByInventoryId.get(line.getKey());
+            Integer quantity = target.get(line.getKey());
+            if (quantity == null) {
+                // orphanRemoval deletes the row
+                cart.getCartItems().remove(cartItem);
+            } else if (!quantity.equals(line.getValue())) {
+                cartItem.setQuantity(quantity);
+            }
+        }
+        List<CartItem> newItems = new ArrayList<>();
+        for (Inventory inventory : newParts.values()) {
+            CartItem cartItem = new CartItem();
+            cartItem.setCart(cart);
+            cartItem.setInventory(inventory);
+            cartItem.setQuantity(target.get(inventory.getId()));
+            cartItem.setUnitPrice(inventory.getUnitPrice().doubleValue());
+            newItems.add(cartItem);
+        }
+        // Sequence ids let the inserts go out as one JDBC batch
+        cartItemRepository.saveAll(newItems);
+        cart.getCartItems().addAll(newItems);
+
+        return convertToCartResponse(cart);
+    }
+
+    // Quantity per part after the operations, starting from the cart's current quantities
+    private Map<Long, Integer> applyOperations(Map<Long, Integer> current, Map<Long, Long> inventoryIdByItemId,
+                                               List<CartUpdateRequest.Operation> operations) {
+        Map<Long, Integer> target = new LinkedHashMap<>(current);
+        for (CartUpdateRequest.Operation operation : operations) {
+            if (operation.getAction() == CartUpdateRequest.Action.ADD) {
+                if (operation.getInventoryId() == null || operation.getQuantity() == null) {
+                    throw new RuntimeException("ADD needs an inventoryId and a quantity");
+                }
+                try {
+                    // Several ADDs of one part must not wrap around to a negative quantity
+                    target.merge(operation.getInventoryId(), operation.getQuantity(), Math::addExact);
+                } catch (ArithmeticException e) {
+                    throw new RuntimeException("Quantity too large for inventory item: " + operation.getInventoryId());
+                }
+            } else if (operation.getAction() == CartUpdateRequest.Action.SET) {
+                if (operation.getQuantity() == null) {
+                    throw new RuntimeException("SET needs a quantity");
+                }
+                target.put(lineInventoryId(operation, target, inventoryIdByItemId), operation.getQuantity());
+            } else {
+                target.remove(lineInventoryId(operation, target, inventoryIdByItemId));
+            }
+        }
+        for (Integer quantity : target.values()) {
+            if (quantity <= 0) {
+                throw new RuntimeException("Quantity must be at least 1");
+            }
+        }
+        return target;
+    }
+
+    private Long lineInventoryId(CartUpdateRequest.Operation operation, Map<Long, Integer> target,
+                                 Map<Long, Long> inventoryIdByItemId) {
+        Long inventoryId = operation.getItemId() != null
+                ? inventoryIdByItemId.get(operation.getItemId())
+                : operation.getInventoryId();
+        if (inventoryId == null || !target.containsKey(inventoryId)) {
+            throw new RuntimeException("Cart item not found");
+        }
+        return inventoryId;
+    }
+
+    /**
+     * Check the stock of every line whose quantity changes, and load the parts that are
+     * new to the cart with one query.
+     *
+     * @return the new parts by id, in the order they were added
+     */
+    private Map<Long, Inventory> checkCartChanges(Map<Long, Integer> current, Map<Long, Integer> target) {
+        List<Long> newIds = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : target.entrySet()) {
+            if (!current.containsKey(line.getKey())) {
+                newIds.add(line.getKey());
+            }
+        }
+        Map<Long, Inventory> loaded = new HashMap<>();
+        if (!newIds.isEmpty()) {
+            for (Inventory inventory : inventoryRepository.findAllById(newIds)) {
+                if (!Boolean.TRUE.equals(inventory.getDeleted())) {
+                    loaded.put(inventory.getId(), inventory);
+                }
+            }
+        }
+        Map<Long, Inventory> newParts = new LinkedHashMap<>();
+        for (Long id : newIds) {
+            Inventory inventory = loaded.get(id);
+            if (inventory == null) {
+                throw new RuntimeException("Inventory item not found: " + id);
+            }
+            newParts.put(id, inventory);
+        }
+
+        for (Map.Entry<Long, Integer> line : target.entrySet()) {
+            if (!line.getValue().equals(current.get(line.getKey()))) {
+                Inventory inventory = newParts.get(line.getKey());
+                int available = inventory != null && !stockAvailability.isReady()
+                        ? inventory.getAvailableQty()
+                        : availableStock(line.getKey());
+                if (available < line.getValue()) {
+                    throw new RuntimeException("Insufficient stock for item " + line.getKey() + ". Available: " + available);
+                }
+            }
+        }
+        return newParts;
+    }
+
+    // Stock checks read the in-memory availability map instead of loading the part
+    private void checkStock(Long inventoryId, int quantity) {
+        int available = availableStock(inventoryId);
+        if (available < quantity) {
+            throw new RuntimeException("Insufficient stock. Available: " + available);
+        }
+    }
+
+    private int availableStock(Long inventoryId) {
+        int available = stockAvailability.isReady()
+                ? stockAvailability.getAvailable(inventoryId)
+                : inventoryRepository.findByIdAndNotDeleted(inventoryId).map(Inventory::getAvailableQty).orElse(StockAvailability.UNKNOWN);
+        if (available == StockAvailability.UNKNOWN) {
+            throw new RuntimeException("Inventory item not found");
+        }
+        return available;
+    }
+
     private Cart createNewCart(User user) {
         Cart cart = new Cart();
         cart.setUser(user);
@@ -163,13 +399,40 @@ public class CartService {
         return response;
     }
     
-    private InventoryResponse convertToInventoryResponse(Inventory inventory) {
+    // Cached cart: part details come from the line's snapshot, stock from the availability map
+    private CartResponse convertToCartResponse(CartStore.CachedCart cart) {
+        List<CartItemResponse> cartItemResponses = new ArrayList<>();
+        double totalAmount = 0.0;
+        int totalItems = 0;
+        for (CartStore.Line line : cart.getLines()) {
+            InventoryResponse part = line.getPart();
+            int available = stockAvailability.getAvailable(line.getInventoryId());
+            InventoryResponse inventory = new InventoryResponse(part.getId(), part.getPartName(), part.getPartCode(),
+                    part.getDescription(), available != StockAvailability.UNKNOWN ? available : part.getQty(),
+                    part.getUnitPrice(), part.getCategory(), part.getBrand(), part.getActive(), part.getImageUrl());
+            cartItemResponses.add(new CartItemResponse(line.getItemId(), line.getQuantity(), line.getUnitPrice(),
+                    line.getAddedAt(), inventory));
+            totalAmount += line.getUnitPrice() * line.getQuantity();
+            totalItems += line.getQuantity();
+        }
+
+        CartResponse response = new CartResponse();
+        response.setId(cart.getCartId());
+        response.setCartItems(cartItemResponses);
+        response.setTotalAmount(totalAmount);
+        response.setTotalItems(totalItems);
+        response.setCreatedAt(cart.getCreatedAt());
+        response.setUpdatedAt(cart.getUpdatedAt());
+        return response;
+    }
+
+    static InventoryResponse convertToInventoryResponse(Inventory inventory) {
         InventoryResponse response = new InventoryResponse();
         response.setId(inventory.getId());
         response.setPartName(inventory.getPartName());
         response.setPartCode(inventory.getPartCode());
         response.setDescription(inventory.getDescription());
-        response.setQty(inventory.getQty());
+        response.setQty(inventory.getAvailableQty());
         response.setUnitPrice(inventory.getUnitPrice());
         response.setCategory(inventory.getCategory());
         response.setBrand(inventory.getBrand());
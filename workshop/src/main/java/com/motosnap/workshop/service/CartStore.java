@@ -0,0 +1,635 @@
+package com.motosnap.workshop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.motosnap.workshop.dto.InventoryResponse;
+import com.motosnap.workshop.entity.Cart;
+import com.motosnap.workshop.entity.CartItem;
+import com.motosnap.workshop.entity.User;
+import com.motosnap.workshop.repository.CartRepository;
+import com.motosnap.workshop.repository.UserRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Optional write-behind store for shopping carts (cart.write-behind.enabled).
+ *
+ * Active carts are kept in a bounded map keyed by user id, so viewing or changing
+ * a cart does not read it back from the database. Changes are recorded on the
+ * cached cart and written to carts / cart_items by a flusher that runs every
+ * cart.write-behind.flush-interval-ms, many carts per transaction, as JDBC batches.
+ * A cart that is not cached is loaded from the database on first use.
+ *
+ * New lines get their id from the cart_items sequence straight away, so the ids
+ * handed to the client stay valid once the rows are written. Code that reads cart
+ * rows from the database (checkout) calls flush() first. A cart evicted with
+ * unwritten changes is parked until the flusher has written it, and a miss on a
+ * parked cart takes it back instead of reading older rows; the eviction itself
+ * does no I/O. Every pending change is written on shutdown, so a crash loses at
+ * most the changes of the last flush interval. A failed write puts the changes
+ * back and they are retried on the next run.
+ *
+ * The cached cart is the only writer of its rows, so with several nodes a user's
+ * requests must stick to one node.
+ */
+@Component
+public class CartStore implements DisposableBean {
+
+    private static final String INSERT_ITEM =
+        "INSERT INTO cart_items (id, cart_id, inventory_id, quantity, unit_price, added_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_ITEM = "UPDATE cart_items SET quantity = ?, updated_at = ? WHERE id = ?";
+    private static final String DELETE_ITEM = "DELETE FROM cart_items WHERE id = ?";
+    private static final String TOUCH_CART = "UPDATE carts SET updated_at = ? WHERE id = ?";
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final CartRepository cartRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIds sequenceIds;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newCartTransaction;
+    private final Cache<String, Long> userIdsByEmail;
+    private final Cache<Long, CachedCart> carts;
+    // Carts with changes not yet written, evicted or not
+    private final Set<CachedCart> dirty = ConcurrentHashMap.newKeySet();
+    // Evicted carts that may have unwritten changes, by user id
+    private final Map<Long, CachedCart> parked = new ConcurrentHashMap<>();
+
+    public CartStore(CartRepository cartRepository,
+                     UserRepository userRepository,
+                     JdbcTemplate jdbcTemplate,
+                     SequenceIds sequenceIds,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${cart.write-behind.enabled:false}") boolean enabled,
+                     @Value("${cart.write-behind.max-carts:10000}") long maxCarts,
+                     @Value("${cart.write-behind.idle-minutes:30}") long idleMinutes,
+                     @Value("${cart.write-behind.batch-size:200}") int batchSize) {
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.cartRepository = cartRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequenceIds = sequenceIds;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A new cart row must exist even if the request that created it fails
+        this.newCartTransaction = new TransactionTemplate(transactionManager);
+        this.newCartTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.userIdsByEmail = Caffeine.newBuilder()
+            .maximumSize(maxCarts)
+            .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+            .build();
+        this.carts = Caffeine.newBuilder()
+            .maximumSize(maxCarts)
+            .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+            .evictionListener((Long userId, CachedCart cart, RemovalCause cause) -> {
+                if (userId != null && cart != null) {
+                    evicted(userId, cart);
+                }
+            })
+            .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Run an action on the user's cart while holding its lock, loading the cart
+     * (or creating it) on a miss. Changes made through the cart are written later.
+     */
+    public <T> T withCart(String userEmail, Function<CachedCart, T> action) {
+        Long userId = userIdsByEmail.get(userEmail, this::findUserId);
+        while (true) {
+            CachedCart cart = carts.get(userId, this::load);
+            synchronized (cart) {
+                // Evicted after this thread got it; the next get takes it back from parked
+                if (!cart.evicted) {
+                    return action.apply(cart);
+                }
+            }
+        }
+    }
+
+    /**
+     * Id for a new cart line, taken from the same sequence Hibernate uses for CartItem.
+     */
+    public long nextItemId() {
+        return sequenceIds.next(CartItem.class);
+    }
+
+    /**
+     * Write the user's pending cart changes now, joining the current transaction
+     * if there is one. Call before reading the cart's rows from the database.
+     */
+    public void flush(String userEmail) {
+        if (!enabled) {
+            return;
+        }
+        Long userId = userIdsByEmail.get(userEmail, this::findUserId);
+        CachedCart cart = carts.getIfPresent(userId);
+        if (cart == null && parked.containsKey(userId)) {
+            // Back into the map first, so a rollback of the caller puts the changes on a live cart
+            cart = carts.get(userId, this::load);
+        }
+        if (cart != null) {
+            write(List.of(cart), true);
+        }
+    }
+
+    /**
+     * Drop lines that were turned into an order (and deleted) from the cached cart
+     * once the order commits.
+     */
+    public void removeItemsAfterCommit(Long userId, Collection<Long> itemIds) {
+        if (!enabled) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(itemIds);
+        TransactionHooks.afterCommit(() -> {
+            CachedCart cart = carts.getIfPresent(userId);
+            if (cart == null) {
+                cart = parked.get(userId);
+            }
+            if (cart != null) {
+                synchronized (cart) {
+                    for (Long id : ids) {
+                        cart.lines.remove(id);
+                        cart.removedItemIds.remove(id);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Write pending changes, batchSize carts per transaction, then let go of the
+     * evicted carts that are fully written.
+     */
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval-ms:1000}")
+    public void flushDirty() {
+        if (!enabled) {
+            return;
+        }
+        List<CachedCart> batch = new ArrayList<>(batchSize);
+        Iterator<CachedCart> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            iterator.remove();
+            if (batch.size() == batchSize || !iterator.hasNext()) {
+                writeBatch(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        // A miss from now on reads rows that hold everything the parked copy had
+        parked.forEach((userId, cart) -> {
+            if (isWritten(cart)) {
+                parked.remove(userId, cart);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        if (!enabled) {
+            return;
+        }
+        // Nothing else writes now, so keep going until every cart is written or fails
+        int carts = dirty.size();
+        for (int attempt = 0; attempt < 3 && !dirty.isEmpty(); attempt++) {
+            flushDirty();
+        }
+        if (dirty.isEmpty()) {
+            System.out.println("DEBUG: Cart store flushed " + carts + " carts on shutdown");
+        } else {
+            System.err.println("Cart store could not write " + dirty.size() + " carts on shutdown");
+        }
+    }
+
+    private void writeBatch(List<CachedCart> batch) {
+        try {
+            write(batch, false);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                System.err.println("Failed to write cart " + batch.get(0).cartId + ", will retry: " + e.getMessage());
+                return;
+            }
+            // Write the carts one by one so one bad cart does not hold back the rest
+            for (CachedCart cart : batch) {
+                try {
+                    write(List.of(cart), false);
+                } catch (RuntimeException single) {
+                    System.err.println("Failed to write cart " + cart.cartId + ", will retry: " + single.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Take the pending changes of the carts and write them in one transaction. Carts
+     * whose changes are being written by another thread are skipped unless wait is set.
+     * If the transaction fails or is rolled back, the changes are put back.
+     */
+    private void write(List<CachedCart> batch, boolean wait) {
+        List<CachedCart> locked = new ArrayList<>(batch.size());
+        try {
+            List<Changes> changes = new ArrayList<>(batch.size());
+            for (CachedCart cart : batch) {
+                if (wait) {
+                    cart.flushLock.lock();
+                } else if (!cart.flushLock.tryLock()) {
+                    dirty.add(cart);
+                    continue;
+                }
+                locked.add(cart);
+                Changes pending = cart.takeChanges();
+                if (pending != null) {
+                    changes.add(pending);
+                }
+            }
+            if (changes.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    writeChanges(changes);
+                    // Also covers an outer transaction (checkout) that rolls back later
+                    TransactionHooks.afterRollback(() -> changes.forEach(Changes::restore));
+                });
+            } catch (RuntimeException e) {
+                changes.forEach(Changes::restore);
+                throw e;
+            }
+        } finally {
+            for (CachedCart cart : locked) {
+                cart.flushLock.unlock();
+            }
+        }
+    }
+
+    private void writeChanges(List<Changes> changes) {
+        // Carts are touched first and in id order: the UPDATE takes the cart row lock that
+        // checkout also holds, so a cart's rows never change under a checkout
+        changes.sort(Comparator.comparingLong(pending -> pending.cart.cartId));
+        List<Long> deletes = new ArrayList<>();
+        List<ItemRow> inserts = new ArrayList<>();
+        List<ItemRow> updates = new ArrayList<>();
+        List<Object[]> touches = new ArrayList<>();
+        for (Changes pending : changes) {
+            deletes.addAll(pending.deletes);
+            inserts.addAll(pending.inserts);
+            updates.addAll(pending.updates);
+            touches.add(new Object[] { pending.cartUpdatedAt, pending.cart.cartId });
+        }
+        jdbcTemplate.batchUpdate(TOUCH_CART, touches);
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_ITEM, deletes, deletes.size(), (ps, id) -> ps.setLong(1, id));
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ITEM, inserts, inserts.size(), (ps, row) -> {
+                ps.setLong(1, row.id);
+                ps.setLong(2, row.cartId);
+                ps.setLong(3, row.inventoryId);
+                ps.setInt(4, row.quantity);
+                ps.setDouble(5, row.unitPrice);
+                ps.setObject(6, row.addedAt);
+                ps.setObject(7, row.updatedAt);
+            });
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_ITEM, updates, updates.size(), (ps, row) -> {
+                ps.setInt(1, row.quantity);
+                ps.setObject(2, row.updatedAt);
+                ps.setLong(3, row.id);
+            });
+        }
+    }
+
+    /**
+     * Runs inside Caffeine's removal of the entry, so a miss on the same user waits
+     * for it. Only parks the cart; the flusher writes it.
+     */
+    private void evicted(Long userId, CachedCart cart) {
+        synchronized (cart) {
+            cart.evicted = true;
+        }
+        if (!isWritten(cart)) {
+            parked.put(userId, cart);
+        }
+    }
+
+    /**
+     * Whether the cart has no changes that are pending or being written.
+     */
+    private boolean isWritten(CachedCart cart) {
+        if (!cart.flushLock.tryLock()) {
+            return false;
+        }
+        try {
+            return !cart.hasChanges();
+        } finally {
+            cart.flushLock.unlock();
+        }
+    }
+
+    private Long findUserId(String email) {
+        return userRepository.findByEmail(email)
+            .map(User::getId)
+            .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    private CachedCart load(Long userId) {
+        CachedCart evicted = parked.remove(userId);
+        if (evicted != null) {
+            synchronized (evicted) {
+                evicted.evicted = false;
+            }
+            return evicted;
+        }
+        Cart cart = cartRepository.findByUserIdWithItems(userId)
+            .orElseGet(() -> newCartTransaction.execute(status -> {
+                Cart created = new Cart();
+                created.setUser(userRepository.getReferenceById(userId));
+                created.setCartItems(new ArrayList<>());
+                return cartRepository.save(created);
+            }));
+        CachedCart cached = new CachedCart(cart.getId(), cart.getCreatedAt(), cart.getUpdatedAt(), dirty);
+        for (CartItem item : cart.getCartItems()) {
+            Line line = new Line(item.getId(), item.getInventory().getId(), item.getQuantity(), item.getUnitPrice(),
+                item.getAddedAt(), item.getUpdatedAt(), CartService.convertToInventoryResponse(item.getInventory()));
+            line.persisted = true;
+            cached.lines.put(line.itemId, line);
+        }
+        return cached;
+    }
+
+    /**
+     * A user's cart as held in memory. Only use it inside withCart(), which holds its lock.
+     */
+    public static final class CachedCart {
+        private final long cartId;
+        private final LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
+        private final Map<Long, Line> lines = new LinkedHashMap<>();
+        // Written lines that were removed and still have to be deleted
+        private final Set<Long> removedItemIds = new HashSet<>();
+        private boolean touched;
+        private boolean evicted;
+        private final ReentrantLock flushLock = new ReentrantLock();
+        private final Set<CachedCart> dirty;
+
+        private CachedCart(long cartId, LocalDateTime createdAt, LocalDateTime updatedAt, Set<CachedCart> dirty) {
+            this.cartId = cartId;
+            this.createdAt = createdAt;
+            this.updatedAt = updatedAt;
+            this.dirty = dirty;
+        }
+
+        public long getCartId() {
+            return cartId;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public LocalDateTime getUpdatedAt() {
+            return updatedAt;
+        }
+
+        public Collection<Line> getLines() {
+            return Collections.unmodifiableCollection(lines.values());
+        }
+
+        public Line getLine(long itemId) {
+            return lines.get(itemId);
+        }
+
+        public Line findByInventoryId(long inventoryId) {
+            for (Line line : lines.values()) {
+                if (line.inventoryId == inventoryId) {
+                    return line;
+                }
+            }
+            return null;
+        }
+
+        public void addLine(long itemId, long inventoryId, int quantity, double unitPrice, InventoryResponse part) {
+            LocalDateTime now = LocalDateTime.now();
+            Line line = new Line(itemId, inventoryId, quantity, unitPrice, now, now, part);
+            line.dirty = true;
+            lines.put(itemId, line);
+            touch(now);
+        }
+
+        public void setQuantity(Line line, int quantity) {
+            LocalDateTime now = LocalDateTime.now();
+            line.quantity = quantity;
+            line.updatedAt = now;
+            line.dirty = true;
+            touch(now);
+        }
+
+        public void removeLine(Line line) {
+            lines.remove(line.itemId);
+            if (line.persisted) {
+                removedItemIds.add(line.itemId);
+            }
+            touch(LocalDateTime.now());
+        }
+
+        private void touch(LocalDateTime now) {
+            updatedAt = now;
+            touched = true;
+            dirty.add(this);
+        }
+
+        private synchronized boolean hasChanges() {
+            if (touched || !removedItemIds.isEmpty()) {
+                return true;
+            }
+            for (Line line : lines.values()) {
+                if (line.dirty) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Copy the pending changes and mark them written, or null when there are none.
+         */
+        private synchronized Changes takeChanges() {
+            Changes changes = new Changes(this);
+            for (Line line : lines.values()) {
+                if (!line.dirty) {
+                    continue;
+                }
+                ItemRow row = new ItemRow(line, cartId);
+                if (line.persisted) {
+                    changes.updates.add(row);
+                } else {
+                    changes.inserts.add(row);
+                    line.persisted = true;
+                }
+                line.dirty = false;
+            }
+            changes.deletes.addAll(removedItemIds);
+            removedItemIds.clear();
+            if (!touched && changes.isEmpty()) {
+                return null;
+            }
+            // Every write touches the cart row, which is what locks it
+            changes.cartUpdatedAt = updatedAt;
+            touched = false;
+            return changes;
+        }
+
+        /**
+         * Mark the changes pending again after their write failed.
+         */
+        private synchronized void restore(Changes changes) {
+            for (ItemRow row : changes.inserts) {
+                Line line = lines.get(row.id);
+                if (line != null) {
+                    line.persisted = false;
+                    line.dirty = true;
+                } else {
+                    // Removed in the meantime; the row was never written, so there is nothing to delete
+                    removedItemIds.remove(row.id);
+                }
+            }
+            for (ItemRow row : changes.updates) {
+                Line line = lines.get(row.id);
+                if (line != null) {
+                    line.dirty = true;
+                }
+            }
+            removedItemIds.addAll(changes.deletes);
+            touched = true;
+            dirty.add(this);
+        }
+    }
+
+    /**
+     * One line of a cached cart, with a snapshot of the part taken when the line was added or loaded.
+     */
+    public static final class Line {
+        private final long itemId;
+        private final long inventoryId;
+        private int quantity;
+        private final double unitPrice;
+        private final LocalDateTime addedAt;
+        private LocalDateTime updatedAt;
+        private final InventoryResponse part;
+        private boolean persisted;
+        private boolean dirty;
+
+        private Line(long itemId, long inventoryId, int quantity, double unitPrice,
+                     LocalDateTime addedAt, LocalDateTime updatedAt, InventoryResponse part) {
+            this.itemId = itemId;
+            this.inventoryId = inventoryId;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+            this.addedAt = addedAt;
+            this.updatedAt = updatedAt;
+            this.part = part;
+        }
+
+        public long getItemId() {
+            return itemId;
+        }
+
+        public long getInventoryId() {
+            return inventoryId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public double getUnitPrice() {
+            return unitPrice;
+        }
+
+        public LocalDateTime getAddedAt() {
+            return addedAt;
+        }
+
+        public InventoryResponse getPart() {
+            return part;
+        }
+    }
+
+    /**
+     * Values of a line at the time its changes were taken.
+     */
+    private static final class ItemRow {
+        private final long id;
+        private final long cartId;
+        private final long inventoryId;
+        private final int quantity;
+        private final double unitPrice;
+        private final LocalDateTime addedAt;
+        private final LocalDateTime updatedAt;
+
+        ItemRow(Line line, long cartId) {
+            this.id = line.itemId;
+            this.cartId = cartId;
+            this.inventoryId = line.inventoryId;
+            this.quantity = line.quantity;
+            this.unitPrice = line.unitPrice;
+            this.addedAt = line.addedAt;
+            this.updatedAt = line.updatedAt;
+        }
+    }
+
+    private static final class Changes {
+        private final CachedCart cart;
+        private final List<ItemRow> inserts = new ArrayList<>();
+        private final List<ItemRow> updates = new ArrayList<>();
+        private final List<Long> deletes = new ArrayList<>();
+        private LocalDateTime cartUpdatedAt;
+        private boolean restored;
+
+        Changes(CachedCart cart) {
+            this.cart = cart;
+        }
+
+        boolean isEmpty() {
+            return inserts.isEmpty() && updates.isEmpty() && deletes.isEmpty();
+        }
+
+        // May be called twice for one failure (exception and rollback hook)
+        void restore() {
+            if (!restored) {
+                restored = true;
+                cart.restore(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.config.CacheConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clears the catalog caches from the write paths. Eviction waits for the commit,
+ * otherwise a concurrent read could load and cache the old rows again. Parts are
+ * also keyed by a generation that each eviction advances, since clearing the cache
+ * does not stop a load that is already running from storing its rows.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogCacheEvictor {
+
+    private final CacheManager cacheManager;
+    private final AtomicLong partsGeneration = new AtomicLong();
+
+    public long partsGeneration() {
+        return partsGeneration.get();
+    }
+
+    /**
+     * For changes to the catalog itself. Stock changes do not need it, see PartsCatalogCache.
+     */
+    public void evictPartsAfterCommit() {
+        TransactionHooks.afterCommit(() -> {
+            partsGeneration.incrementAndGet();
+            clear(CacheConfig.PARTS_CATALOG);
+        });
+    }
+
+    public void evictServicesAfterCommit() {
+        TransactionHooks.afterCommit(() -> clear(CacheConfig.PUBLIC_SERVICES));
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
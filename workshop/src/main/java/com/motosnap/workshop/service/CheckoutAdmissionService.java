@@ -0,0 +1,265 @@
+package com.motosnap.workshop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.motosnap.workshop.dto.CheckoutTicketResponse;
+import com.motosnap.workshop.dto.OrderResponse;
+import com.motosnap.workshop.repository.CartItemRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queued checkout for flash sales, where many customers order the same part at once.
+ *
+ * A checkout submitted here returns a ticket straight away and runs on a bounded
+ * worker pool. Before it touches the database, every line of the cart must be
+ * admitted by the shard that owns the part (inventory id mod shards). Each shard
+ * is a single thread, so admission for one part is serialized without locks: it
+ * grants the quantity only if available stock minus what is already admitted and
+ * not yet ordered covers it. Demand beyond the stock is therefore refused in
+ * memory, and only admitted checkouts reach the conditional stock UPDATE, which
+ * still has the final say.
+ *
+ * Tickets are kept for a while after they finish so clients can poll for the result.
+ */
+@Service
+public class CheckoutAdmissionService implements DisposableBean {
+
+    private final OrderService orderService;
+    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
+    private final StockAvailability stockAvailability;
+    private final Shard[] shards;
+    private final ThreadPoolExecutor workers;
+    private final Cache<String, Ticket> tickets;
+    private final Cache<String, String> activeTicketByUser;
+    private final Counter admitted;
+    private final Counter rejected;
+
+    public CheckoutAdmissionService(OrderService orderService,
+                                    CartItemRepository cartItemRepository,
+                                    CartStore cartStore,
+                                    StockAvailability stockAvailability,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${checkout.queue.shards:4}") int shardCount,
+                                    @Value("${checkout.queue.workers:8}") int workerCount,
+                                    @Value("${checkout.queue.capacity:1000}") int capacity,
+                                    @Value("${checkout.queue.ticket-ttl-minutes:10}") long ticketTtlMinutes) {
+        this.orderService = orderService;
+        this.cartItemRepository = cartItemRepository;
+        this.cartStore = cartStore;
+        this.stockAvailability = stockAvailability;
+        this.shards = new Shard[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(capacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "checkout-worker-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, workers, "checkoutQueue");
+        this.tickets = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(ticketTtlMinutes))
+            .build();
+        this.activeTicketByUser = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(ticketTtlMinutes))
+            .build();
+        this.admitted = Counter.builder("checkout.queue.admissions").tag("result", "admitted").register(meterRegistry);
+        this.rejected = Counter.builder("checkout.queue.admissions").tag("result", "rejected").register(meterRegistry);
+    }
+
+    /**
+     * Queue a checkout of the user's cart. A user with a checkout still in the queue
+     * gets that ticket back instead of a second one.
+     *
+     * @throws QueueFullException when the queue is at capacity
+     */
+    public CheckoutTicketResponse submit(String userEmail) {
+        CheckoutTicketResponse[] result = new CheckoutTicketResponse[1];
+        boolean[] queued = new boolean[1];
+        // Checking for an active ticket and registering a new one happen in one compute
+        // on the user's key, so a concurrent submit cannot find the id before the ticket
+        String ticketId = activeTicketByUser.asMap().compute(userEmail, (email, existing) -> {
+            Ticket active = existing != null ? tickets.getIfPresent(existing) : null;
+            if (active != null && !active.state.isFinished()) {
+                result[0] = active.state;
+                return existing;
+            }
+            String id = UUID.randomUUID().toString();
+            result[0] = new CheckoutTicketResponse(id, CheckoutTicketResponse.Status.QUEUED,
+                null, null, LocalDateTime.now());
+            tickets.put(id, new Ticket(email, result[0]));
+            queued[0] = true;
+            return id;
+        });
+        if (!queued[0]) {
+            return result[0];
+        }
+
+        try {
+            workers.execute(() -> process(userEmail, ticketId));
+        } catch (RejectedExecutionException e) {
+            tickets.invalidate(ticketId);
+            activeTicketByUser.asMap().remove(userEmail, ticketId);
+            throw new QueueFullException();
+        }
+        return result[0];
+    }
+
+    /**
+     * Current state of a ticket, or null when it is unknown or belongs to someone else.
+     */
+    public CheckoutTicketResponse getTicket(String userEmail, String ticketId) {
+        Ticket ticket = tickets.getIfPresent(ticketId);
+        return ticket != null && ticket.userEmail.equals(userEmail) ? ticket.state : null;
+    }
+
+    private void process(String userEmail, String ticketId) {
+        List<Map.Entry<Long, Integer>> granted = new ArrayList<>();
+        try {
+            // Quantity per part, admitted in id order
+            cartStore.flush(userEmail);
+            Map<Long, Integer> quantities = new TreeMap<>();
+            for (Object[] row : cartItemRepository.findQuantitiesByUserEmail(userEmail)) {
+                quantities.put((Long) row[0], ((Number) row[1]).intValue());
+            }
+            if (quantities.isEmpty()) {
+                update(ticketId, CheckoutTicketResponse.Status.FAILED, null, "Cart is empty");
+                return;
+            }
+
+            for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                int available = shardFor(line.getKey()).admit(line.getKey(), line.getValue());
+                if (available >= 0) {
+                    rejected.increment();
+                    update(ticketId, CheckoutTicketResponse.Status.REJECTED, null,
+                        "Insufficient stock for item " + line.getKey() + ". Available: " + available);
+                    return;
+                }
+                granted.add(line);
+            }
+            admitted.increment();
+            update(ticketId, CheckoutTicketResponse.Status.ADMITTED, null, null);
+
+            OrderResponse order = orderService.createOrderFromCart(userEmail);
+            update(ticketId, CheckoutTicketResponse.Status.COMPLETED, order.getId(), null);
+        } catch (RuntimeException e) {
+            update(ticketId, CheckoutTicketResponse.Status.FAILED, null, e.getMessage());
+        } finally {
+            // The order (if any) has committed, so its stock now shows in StockAvailability
+            for (Map.Entry<Long, Integer> line : granted) {
+                shardFor(line.getKey()).release(line.getKey(), line.getValue());
+            }
+        }
+    }
+
+    private void update(String ticketId, CheckoutTicketResponse.Status status, Long orderId, String message) {
+        tickets.asMap().computeIfPresent(ticketId,
+            (id, ticket) -> new Ticket(ticket.userEmail, ticket.state.with(status, orderId, message)));
+    }
+
+    private Shard shardFor(long inventoryId) {
+        return shards[(int) Math.floorMod(inventoryId, (long) shards.length)];
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdownNow();
+        for (Shard shard : shards) {
+            shard.executor.shutdownNow();
+        }
+    }
+
+    private static final class Ticket {
+        private final String userEmail;
+        private final CheckoutTicketResponse state;
+
+        Ticket(String userEmail, CheckoutTicketResponse state) {
+            this.userEmail = userEmail;
+            this.state = state;
+        }
+    }
+
+    /**
+     * Single writer for the parts it owns. inFlight is only touched by the shard's thread.
+     */
+    private final class Shard {
+        private final ExecutorService executor;
+        private final Map<Long, Integer> inFlight = new HashMap<>();
+
+        Shard(int index) {
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "checkout-admission-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /**
+         * @return -1 when admitted, otherwise the quantity that could still be admitted
+         */
+        int admit(long inventoryId, int quantity) {
+            try {
+                return executor.submit(() -> {
+                    int available = stockAvailability.getAvailable(inventoryId);
+                    if (available == StockAvailability.UNKNOWN) {
+                        throw new RuntimeException("Inventory item not found with id: " + inventoryId);
+                    }
+                    int free = available - inFlight.getOrDefault(inventoryId, 0);
+                    if (free < quantity) {
+                        return Math.max(0, free);
+                    }
+                    inFlight.merge(inventoryId, quantity, Integer::sum);
+                    return -1;
+                }).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Checkout interrupted");
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new RuntimeException(e.getCause());
+            }
+        }
+
+        void release(long inventoryId, int quantity) {
+            executor.execute(() -> inFlight.computeIfPresent(inventoryId,
+                (id, current) -> current > quantity ? current - quantity : null));
+        }
+    }
+
+    /**
+     * The checkout queue is full; the caller should answer 503 and let the client retry.
+     */
+    public static class QueueFullException extends RuntimeException {
+        public QueueFullException() {
+            super("Checkout queue is full, please retry shortly");
+        }
+    }
+}
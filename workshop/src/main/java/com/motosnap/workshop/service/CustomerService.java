@@ -23,11 +23,13 @@ public class CustomerService {
     @Autowired
     private VehicleRepository vehicleRepository;
 
+    @Transactional(readOnly = true)
     public Optional<UserProfileResponse> getUserProfile(String email) {
         return userRepository.findByEmail(email)
                 .map(this::convertToProfileResponse);
     }
 
+    @Transactional(readOnly = true)
     public List<Vehicle> getVehiclesByEmail(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
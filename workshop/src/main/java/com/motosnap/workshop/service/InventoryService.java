@@ -1,6 +1,7 @@
 package com.motosnap.workshop.service;
 
 import com.motosnap.workshop.dto.InventoryRequest;
+import com.motosnap.workshop.dto.PartSuggestion;
 import com.motosnap.workshop.entity.Inventory;
 import com.motosnap.workshop.repository.InventoryRepository;
 import lombok.RequiredArgsConstructor;
@@ -15,7 +16,10 @@ import org.springframework.beans.factory.annotation.Value;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -23,6 +27,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -30,6 +35,12 @@ import java.util.UUID;
 public class InventoryService {
     
     private final InventoryRepository inventoryRepository;
+    private final PartsSearchIndex partsSearchIndex;
+    private final PartSuggestionIndex partSuggestionIndex;
+    private final CatalogCacheEvictor catalogCacheEvictor;
+    private final PartsCatalogCache partsCatalogCache;
+    private final StockAvailability stockAvailability;
+    private final StockService stockService;
     
     @Value("${app.upload.dir:uploads}")
     private String uploadDir;
@@ -37,28 +48,143 @@ public class InventoryService {
     @Value("${app.upload.max-file-size:5242880}")
     private long maxFileSize; // 5MB default
     
+    @Transactional(readOnly = true)
     public List<Inventory> getAllInventoryItems() {
         return inventoryRepository.findAllNonDeleted();
     }
     
+    /**
+     * Full parts catalog for the public parts browser. The rows come from the catalog
+     * cache, where concurrent misses wait for a single load, and the stock from
+     * StockAvailability, so the cache is not cleared by every order.
+     */
+    @Transactional(readOnly = true)
+    public List<Inventory> getPartsCatalog() {
+        return withAvailableStock(partsCatalogCache.load(catalogCacheEvictor.partsGeneration()));
+    }
+    
+    @Transactional(readOnly = true)
     public Page<Inventory> getAllInventoryItems(Pageable pageable) {
         return inventoryRepository.findAll(pageable);
     }
     
+    @Transactional(readOnly = true)
     public Optional<Inventory> getInventoryItemById(Long id) {
         return inventoryRepository.findByIdAndNotDeleted(id);
     }
     
+    @Transactional(readOnly = true)
     public List<Inventory> searchInventoryItems(String searchTerm) {
-        return inventoryRepository.findByPartNameContainingIgnoreCaseOrPartCodeContainingIgnoreCaseAndNotDeleted(
-            searchTerm, searchTerm
-        );
+        if (!partsSearchIndex.isReady()) {
+            return inventoryRepository.findByPartNameContainingIgnoreCaseOrPartCodeContainingIgnoreCaseAndNotDeleted(
+                searchTerm, searchTerm
+            );
+        }
+        return findAllInOrder(partsSearchIndex.searchNameOrCode(searchTerm));
     }
     
+    @Transactional(readOnly = true)
     public List<Inventory> getInventoryByCategory(String category) {
-        return inventoryRepository.findByCategoryIgnoreCaseAndNotDeleted(category);
+        if (!partsSearchIndex.isReady()) {
+            return inventoryRepository.findByCategoryIgnoreCaseAndNotDeleted(category);
+        }
+        return findAllInOrder(partsSearchIndex.findByCategory(category, false));
     }
     
+    @Transactional(readOnly = true)
+    public List<Inventory> getInventoryByBrand(String brand) {
+        if (!partsSearchIndex.isReady()) {
+            return inventoryRepository.findByBrandIgnoreCaseAndNotDeleted(brand);
+        }
+        return findAllInOrder(partsSearchIndex.findByBrand(brand, false));
+    }
+    
+    /**
+     * Catalog search for the parts browser: free text plus optional category
+     * and brand filters, ranked by relevance. Only active parts are returned,
+     * with stock reported like getPartsCatalog.
+     */
+    @Transactional(readOnly = true)
+    public List<Inventory> searchCatalog(String searchTerm, String category, String brand) {
+        if (!partsSearchIndex.isReady()) {
+            List<Inventory> parts = inventoryRepository.findAllNonDeleted();
+            return withAvailableStock(inOrder(parts, PartsSearchIndex.searchParts(parts, searchTerm, category, brand, true)));
+        }
+        return withAvailableStock(findAllInOrder(partsSearchIndex.search(searchTerm, category, brand, true)));
+    }
+    
+    /**
+     * Autocomplete for part names, codes and brands. Tolerates small typos and
+     * returns lightweight suggestions instead of full inventory entities.
+     */
+    @Transactional(readOnly = true)
+    public List<PartSuggestion> suggestParts(String query, int limit) {
+        int boundedLimit = Math.min(Math.max(limit, 1), PartSuggestionIndex.MAX_LIMIT);
+        if (!partSuggestionIndex.isReady()) {
+            return inventoryRepository.searchActiveParts(query != null ? query : "").stream()
+                .limit(boundedLimit)
+                .map(part -> new PartSuggestion(part.getId(), part.getPartName(), part.getPartCode(), part.getAvailableQty()))
+                .collect(Collectors.toList());
+        }
+        return partSuggestionIndex.suggest(query, boundedLimit);
+    }
+    
+    /**
+     * Copies of the parts with qty set to the available stock (on hand minus
+     * reservations) and no reserved quantity, which is what a customer can still
+     * order. The cached rows are shared between requests and are not modified.
+     */
+    private List<Inventory> withAvailableStock(List<Inventory> parts) {
+        List<Inventory> copies = new ArrayList<>(parts.size());
+        for (Inventory part : parts) {
+            // A part created or deleted a moment ago may not be in StockAvailability yet
+            int available = stockAvailability.getAvailable(part.getId());
+            Inventory copy = new Inventory();
+            copy.setId(part.getId());
+            copy.setPartName(part.getPartName());
+            copy.setPartCode(part.getPartCode());
+            copy.setDescription(part.getDescription());
+            copy.setQty(available != StockAvailability.UNKNOWN ? available : 0);
+            copy.setReservedQty(0);
+            copy.setUnitPrice(part.getUnitPrice());
+            copy.setMinStockLevel(part.getMinStockLevel());
+            copy.setCategory(part.getCategory());
+            copy.setBrand(part.getBrand());
+            copy.setActive(part.getActive());
+            copy.setDeleted(part.getDeleted());
+            copy.setImageUrl(part.getImageUrl());
+            copy.setCreatedAt(part.getCreatedAt());
+            copy.setUpdatedAt(part.getUpdatedAt());
+            copies.add(copy);
+        }
+        return copies;
+    }
+    
+    // Load the matched parts by primary key and keep the index's ranking
+    private List<Inventory> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return inOrder(inventoryRepository.findAllById(ids), ids);
+    }
+    
+    // The parts with the given ids, in the order of the ids
+    private static List<Inventory> inOrder(List<Inventory> parts, List<Long> ids) {
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            rank.put(ids.get(i), i);
+        }
+        List<Inventory> items = new ArrayList<>(ids.size());
+        for (Inventory part : parts) {
+            if (rank.containsKey(part.getId())) {
+                items.add(part);
+            }
+        }
+        items.sort(Comparator.comparingInt(item -> rank.get(item.getId())));
+        return items;
+    }
+    
+    @Transactional(readOnly = true)
     public List<Inventory> getLowStockItems() {
         return inventoryRepository.findLowStockItems();
     }
@@ -80,7 +206,12 @@ public class InventoryService {
         inventory.setBrand(request.getBrand());
         inventory.setImageUrl(request.getImageUrl());
         
-        return inventoryRepository.save(inventory);
+        Inventory saved = inventoryRepository.save(inventory);
+        partsSearchIndex.indexAfterCommit(saved);
+        partSuggestionIndex.indexAfterCommit(saved);
+        stockAvailability.reloadAfterCommit(saved.getId());
+        catalogCacheEvictor.evictPartsAfterCommit();
+        return saved;
     }
     
     public Inventory updateInventoryItem(Long id, InventoryRequest request) {
@@ -96,7 +227,6 @@ public class InventoryService {
         inventory.setPartName(request.getPartName());
         inventory.setPartCode(request.getPartCode());
         inventory.setDescription(request.getDescription());
-        inventory.setQty(request.getQty());
         inventory.setUnitPrice(BigDecimal.valueOf(request.getUnitPrice()));
         inventory.setMinStockLevel(request.getMinStockLevel());
         inventory.setCategory(request.getCategory());
@@ -105,7 +235,15 @@ public class InventoryService {
             inventory.setImageUrl(request.getImageUrl());
         }
         
-        return inventoryRepository.save(inventory);
+        Inventory saved = inventoryRepository.save(inventory);
+        if (request.getQty() != null) {
+            // The quantity is not written through the entity, see StockService.setStock
+            saved = stockService.setStock(id, request.getQty());
+        }
+        partsSearchIndex.indexAfterCommit(saved);
+        partSuggestionIndex.indexAfterCommit(saved);
+        catalogCacheEvictor.evictPartsAfterCommit();
+        return saved;
     }
     
     public void deleteInventoryItem(Long id) {
@@ -115,6 +253,10 @@ public class InventoryService {
         // Perform soft delete (no dependency checks - safe to delete with references)
         inventory.markAsDeleted();
         inventoryRepository.save(inventory);
+        partsSearchIndex.removeAfterCommit(id);
+        partSuggestionIndex.removeAfterCommit(id);
+        stockAvailability.removeAfterCommit(id);
+        catalogCacheEvictor.evictPartsAfterCommit();
         
         // Optional: Clean up active cart items referencing this deleted inventory
         cleanupCartItemsForDeletedInventory(id);
@@ -138,6 +280,10 @@ public class InventoryService {
         
         inventory.markAsDeleted();
         inventoryRepository.save(inventory);
+        partsSearchIndex.removeAfterCommit(id);
+        partSuggestionIndex.removeAfterCommit(id);
+        stockAvailability.removeAfterCommit(id);
+        catalogCacheEvictor.evictPartsAfterCommit();
     }
     
     public void restoreInventoryItem(Long id) {
@@ -150,12 +296,18 @@ public class InventoryService {
         
         inventory.restore();
         inventoryRepository.save(inventory);
+        partsSearchIndex.indexAfterCommit(inventory);
+        partSuggestionIndex.indexAfterCommit(inventory);
+        stockAvailability.reloadAfterCommit(id);
+        catalogCacheEvictor.evictPartsAfterCommit();
     }
     
+    @Transactional(readOnly = true)
     public List<Inventory> getDeletedItems() {
         return inventoryRepository.findDeletedItems();
     }
     
+    @Transactional(readOnly = true)
     public DependencyInfo checkDependencies(Long inventoryId) {
         long orderItems = inventoryRepository.countOrderItemsForInventory(inventoryId);
         long cartItems = inventoryRepository.countCartItemsForInventory(inventoryId);
@@ -202,13 +354,10 @@ public class InventoryService {
     }
     
     public Inventory updateStock(Long id, Integer newQuantity) {
-        Inventory inventory = inventoryRepository.findByIdAndNotDeleted(id)
-            .orElseThrow(() -> new RuntimeException("Inventory item not found with id: " + id));
-        
-        inventory.setQty(newQuantity);
-        return inventoryRepository.save(inventory);
+        return stockService.setStock(id, newQuantity);
     }
     
+    @Transactional(readOnly = true)
     public boolean isLowStock(Long id) {
         Inventory inventory = inventoryRepository.findByIdAndNotDeleted(id)
             .orElseThrow(() -> new RuntimeException("Inventory item not found with id: " + id));
@@ -283,6 +432,7 @@ public class InventoryService {
         // Update inventory with new image URL
         inventory.setImageUrl(imageUrl);
         inventoryRepository.save(inventory);
+        catalogCacheEvictor.evictPartsAfterCommit();
         
         return imageUrl;
     }
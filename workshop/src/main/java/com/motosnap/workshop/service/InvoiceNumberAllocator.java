@@ -0,0 +1,165 @@
+package com.motosnap.workshop.service;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Year;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out invoice numbers in the format INV-YYYY-XXXXXX.
+ *
+ * Each year has a row in invoice_number_counters. A node reserves a block of
+ * numbers by moving that row forward with one conditional UPDATE, then serves
+ * the block from memory, so most invoices never touch the counter. Blocks never
+ * overlap, which keeps numbers unique across nodes. Numbers left in a block when
+ * a node stops, or taken by an invoice that rolled back, are skipped: the
+ * sequence can have gaps but never repeats.
+ *
+ * Callers are usually inside a transaction that already holds a connection from
+ * the main pool. Blocks are therefore reserved over a separate single-connection
+ * pool, so the thread holding the lock never waits for a main pool connection
+ * that the threads queued behind it are holding.
+ */
+@Service
+public class InvoiceNumberAllocator implements DisposableBean {
+
+    private static final int MAX_RESERVE_ATTEMPTS = 3;
+
+    private static final String ADVANCE =
+            "UPDATE invoice_number_counters SET next_value = next_value + ? WHERE counter_year = ?";
+    private static final String NEXT_VALUE =
+            "SELECT next_value FROM invoice_number_counters WHERE counter_year = ?";
+    private static final String CREATE =
+            "INSERT INTO invoice_number_counters (counter_year, next_value) VALUES (?, ?)";
+    private static final String HIGHEST_ISSUED =
+            "SELECT MAX(invoice_number) FROM invoices WHERE invoice_number LIKE ?";
+
+    private final HikariDataSource counterPool;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate counterTransaction;
+    private final int blockSize;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Current block per year, guarded by lock
+    private final Map<Integer, Block> blocks = new HashMap<>();
+
+    public InvoiceNumberAllocator(DataSource dataSource,
+                                  @Value("${invoice.number.block-size:20}") int blockSize) {
+        this.counterPool = counterPool(dataSource);
+        this.jdbc = new JdbcTemplate(counterPool);
+        this.counterTransaction = new TransactionTemplate(new DataSourceTransactionManager(counterPool));
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    public String nextInvoiceNumber() {
+        lock.lock();
+        try {
+            int year = Year.now().getValue();
+            Block block = blocks.get(year);
+            if (block == null || block.next >= block.limit) {
+                block = reserveBlock(year);
+                blocks.clear();
+                blocks.put(year, block);
+            }
+            return format(year, block.next++);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        counterPool.close();
+    }
+
+    /**
+     * Reserve the next block for a year. Runs in its own short transaction on the
+     * counter pool, so the counter row is locked only for the UPDATE.
+     */
+    private Block reserveBlock(int year) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Block block = counterTransaction.execute(status -> {
+                    if (jdbc.update(ADVANCE, blockSize, year) > 0) {
+                        Long end = jdbc.queryForObject(NEXT_VALUE, Long.class, year);
+                        return new Block(end - blockSize, end);
+                    }
+                    // First block of the year: continue after any numbers issued before the counter existed
+                    long start = highestIssued(year) + 1;
+                    jdbc.update(CREATE, year, start + blockSize);
+                    return new Block(start, start + blockSize);
+                });
+                System.out.println("DEBUG: Reserved invoice numbers " + format(year, block.next) + " to " + format(year, block.limit - 1));
+                return block;
+            } catch (DataIntegrityViolationException e) {
+                // Another node created this year's counter first; advance it instead
+                if (attempt >= MAX_RESERVE_ATTEMPTS) {
+                    throw new RuntimeException("Could not reserve invoice numbers for " + year, e);
+                }
+            }
+        }
+    }
+
+    // Numbers are zero-padded, so the string max is also the numeric max
+    private long highestIssued(int year) {
+        String prefix = prefix(year);
+        List<String> highest = jdbc.queryForList(HIGHEST_ISSUED, String.class, prefix + "%");
+        String number = highest.isEmpty() ? null : highest.get(0);
+        if (number == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(number.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * A one-connection pool with the same settings as the main one. Falls back to
+     * the main data source when it is not a Hikari pool.
+     */
+    private static HikariDataSource counterPool(DataSource dataSource) {
+        HikariConfig config = new HikariConfig();
+        if (dataSource instanceof HikariDataSource hikari) {
+            hikari.copyStateTo(config);
+        } else {
+            config.setDataSource(dataSource);
+        }
+        config.setPoolName("invoice-numbers");
+        config.setMaximumPoolSize(1);
+        config.setMinimumIdle(0);
+        config.setRegisterMbeans(false);
+        return new HikariDataSource(config);
+    }
+
+    private static String prefix(int year) {
+        return "INV-" + year + "-";
+    }
+
+    private static String format(int year, long number) {
+        return prefix(year) + String.format("%06d", number);
+    }
+
+    private static final class Block {
+        private long next;
+        private final long limit;
+
+        private Block(long next, long limit) {
+            this.next = next;
+            this.limit = limit;
+        }
+    }
+}
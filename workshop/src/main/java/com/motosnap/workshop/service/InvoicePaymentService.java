@@ -2,8 +2,12 @@ package com.motosnap.workshop.service;
 
 import com.motosnap.workshop.entity.*;
 import com.motosnap.workshop.repository.*;
+import com.motosnap.workshop.dto.InvoicePaymentFeedResponse;
 import com.motosnap.workshop.dto.InvoicePaymentResponseDTO;
+import com.motosnap.workshop.dto.InvoicePaymentRow;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,6 +16,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -20,6 +25,9 @@ import java.util.stream.Collectors;
 @Transactional
 public class InvoicePaymentService {
 
+    public static final int DEFAULT_FEED_SIZE = 20;
+    public static final int MAX_FEED_SIZE = 100;
+
     @Autowired
     private InvoicePaymentRepository invoicePaymentRepository;
 
@@ -159,6 +167,7 @@ public class InvoicePaymentService {
     /**
      * Get pending payments for admin approval
      */
+    @Transactional(readOnly = true)
     public List<InvoicePayment> getPendingPayments() {
         return invoicePaymentRepository.findByStatusInOrderByCreatedAtDesc(
                 List.of(InvoicePaymentStatus.PAYMENT_SUBMITTED)
@@ -168,18 +177,53 @@ public class InvoicePaymentService {
     /**
      * Get pending payments as DTOs for admin approval
      */
+    @Transactional(readOnly = true)
     public List<InvoicePaymentResponseDTO> getPendingPaymentsAsDTO() {
-        List<InvoicePayment> payments = invoicePaymentRepository.findByStatusInOrderByCreatedAtDesc(
-                List.of(InvoicePaymentStatus.PAYMENT_SUBMITTED)
+        List<InvoicePaymentRow> rows = invoicePaymentRepository.findPaymentRows(
+                List.of(InvoicePaymentStatus.PAYMENT_SUBMITTED), null, null, null, Pageable.unpaged()
         );
-        return payments.stream()
+        return rows.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get one page of payments for the admin payments screen, newest first.
+     * Paging is by keyset: pass the createdAt and id of the last payment of the
+     * previous page, or nulls for the first page. Statuses default to all.
+     */
+    @Transactional(readOnly = true)
+    public InvoicePaymentFeedResponse getPaymentFeed(List<InvoicePaymentStatus> statuses,
+                                                     LocalDateTime beforeCreatedAt, Long beforeId, int size) {
+        if ((beforeCreatedAt == null) != (beforeId == null)) {
+            throw new RuntimeException("beforeCreatedAt and beforeId must be given together");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_FEED_SIZE));
+        List<InvoicePaymentStatus> filter = statuses == null || statuses.isEmpty()
+                ? Arrays.asList(InvoicePaymentStatus.values())
+                : statuses;
+
+        // One extra row tells whether another page exists without a count query
+        List<InvoicePaymentRow> rows = invoicePaymentRepository.findPaymentRows(
+                filter, null, beforeCreatedAt, beforeId, PageRequest.of(0, pageSize + 1)
+        );
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        List<InvoicePaymentResponseDTO> payments = rows.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        InvoicePaymentRow last = hasMore ? rows.get(rows.size() - 1) : null;
+        return new InvoicePaymentFeedResponse(payments, hasMore,
+                last != null ? last.getCreatedAt() : null,
+                last != null ? last.getId() : null);
+    }
+
     /**
      * Get payment by invoice ID
      */
+    @Transactional(readOnly = true)
     public Optional<InvoicePayment> getPaymentByInvoiceId(Long invoiceId) {
         Invoice invoice = invoiceRepository.findById(invoiceId)
                 .orElseThrow(() -> new RuntimeException("Invoice not found"));
@@ -190,6 +234,7 @@ public class InvoicePaymentService {
     /**
      * Get payment by payment ID
      */
+    @Transactional(readOnly = true)
     public InvoicePayment getPaymentById(Long paymentId) {
         return invoicePaymentRepository.findById(paymentId)
                 .orElseThrow(() -> new RuntimeException("Invoice payment not found"));
@@ -198,6 +243,7 @@ public class InvoicePaymentService {
     /**
      * Get payments for a customer
      */
+    @Transactional(readOnly = true)
     public List<InvoicePayment> getPaymentsForCustomer(Long customerId) {
         return invoicePaymentRepository.findByCustomerId(customerId);
     }
@@ -205,6 +251,7 @@ public class InvoicePaymentService {
     /**
      * Get recent payments
      */
+    @Transactional(readOnly = true)
     public List<InvoicePayment> getRecentPayments(int days) {
         LocalDateTime since = LocalDateTime.now().minusDays(days);
         return invoicePaymentRepository.findRecentPayments(since);
@@ -213,10 +260,13 @@ public class InvoicePaymentService {
     /**
      * Get recent payments as DTOs
      */
+    @Transactional(readOnly = true)
     public List<InvoicePaymentResponseDTO> getRecentPaymentsAsDTO(int days) {
         LocalDateTime since = LocalDateTime.now().minusDays(days);
-        List<InvoicePayment> payments = invoicePaymentRepository.findRecentPayments(since);
-        return payments.stream()
+        List<InvoicePaymentRow> rows = invoicePaymentRepository.findPaymentRows(
+                Arrays.asList(InvoicePaymentStatus.values()), since, null, null, Pageable.unpaged()
+        );
+        return rows.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
@@ -224,6 +274,7 @@ public class InvoicePaymentService {
     /**
      * Check if invoice has payment initiated
      */
+    @Transactional(readOnly = true)
     public boolean hasPaymentInitiated(Long invoiceId) {
         Invoice invoice = invoiceRepository.findById(invoiceId)
                 .orElseThrow(() -> new RuntimeException("Invoice not found"));
@@ -234,62 +285,58 @@ public class InvoicePaymentService {
     /**
      * Get payment status for an invoice
      */
+    @Transactional(readOnly = true)
     public InvoicePaymentStatus getPaymentStatus(Long invoiceId) {
         Optional<InvoicePayment> payment = getPaymentByInvoiceId(invoiceId);
         return payment.map(InvoicePayment::getStatus).orElse(null);
     }
 
     /**
-     * Convert InvoicePayment entity to DTO
+     * Convert a projected payment row to the nested DTO
      */
-    private InvoicePaymentResponseDTO convertToDTO(InvoicePayment payment) {
+    private InvoicePaymentResponseDTO convertToDTO(InvoicePaymentRow row) {
         InvoicePaymentResponseDTO dto = new InvoicePaymentResponseDTO();
         
         // Payment basic info
-        dto.setId(payment.getId());
-        dto.setStatus(payment.getStatus());
-        dto.setCreatedAt(payment.getCreatedAt());
-        dto.setUpdatedAt(payment.getUpdatedAt());
-        
-        // Invoice info
-        Invoice invoice = payment.getInvoice();
-        InvoicePaymentResponseDTO.InvoiceInfoDTO invoiceDTO = new InvoicePaymentResponseDTO.InvoiceInfoDTO();
-        invoiceDTO.setId(invoice.getId());
-        invoiceDTO.setInvoiceNumber(invoice.getInvoiceNumber());
-        invoiceDTO.setServiceAmount(invoice.getServiceAmount());
-        invoiceDTO.setPartsAmount(invoice.getPartsAmount());
-        invoiceDTO.setTotalAmount(invoice.getTotalAmount());
-        invoiceDTO.setGeneratedAt(invoice.getGeneratedAt());
+        dto.setId(row.getId());
+        dto.setStatus(row.getStatus());
+        dto.setCreatedAt(row.getCreatedAt());
+        dto.setUpdatedAt(row.getUpdatedAt());
         
         // Booking info
-        Booking booking = invoice.getBooking();
-        InvoicePaymentResponseDTO.BookingInfoDTO bookingDTO = new InvoicePaymentResponseDTO.BookingInfoDTO();
-        bookingDTO.setId(booking.getId());
-        bookingDTO.setCustomerName(booking.getUser().getName());
-        bookingDTO.setServiceName(booking.getService().getName());
-        bookingDTO.setVehiclePlateNo(booking.getVehicle().getPlateNo());
-        bookingDTO.setVehicleBrand(booking.getVehicle().getBrand());
-        bookingDTO.setVehicleModel(booking.getVehicle().getModel());
-        bookingDTO.setScheduledDateTime(booking.getScheduledDateTime());
-        bookingDTO.setAssignedMechanicName(
-            booking.getAssignedMechanic() != null ? booking.getAssignedMechanic().getName() : null
+        InvoicePaymentResponseDTO.BookingInfoDTO bookingDTO = new InvoicePaymentResponseDTO.BookingInfoDTO(
+                row.getBookingId(),
+                row.getCustomerName(),
+                row.getServiceName(),
+                row.getVehiclePlateNo(),
+                row.getVehicleBrand(),
+                row.getVehicleModel(),
+                row.getScheduledDateTime(),
+                row.getAssignedMechanicName()
         );
         
-        invoiceDTO.setBooking(bookingDTO);
-        dto.setInvoice(invoiceDTO);
+        // Invoice info
+        dto.setInvoice(new InvoicePaymentResponseDTO.InvoiceInfoDTO(
+                row.getInvoiceId(),
+                row.getInvoiceNumber(),
+                row.getServiceAmount(),
+                row.getPartsAmount(),
+                row.getTotalAmount(),
+                row.getGeneratedAt(),
+                bookingDTO
+        ));
         
         // Receipt info (if exists)
-        if (payment.getReceipt() != null) {
-            InvoiceReceipt receipt = payment.getReceipt();
-            InvoicePaymentResponseDTO.ReceiptInfoDTO receiptDTO = new InvoicePaymentResponseDTO.ReceiptInfoDTO();
-            receiptDTO.setId(receipt.getId());
-            receiptDTO.setAmount(receipt.getAmount());
-            receiptDTO.setFileUrl(receipt.getFileUrl());
-            receiptDTO.setNotes(receipt.getNotes());
-            receiptDTO.setAdminNotes(receipt.getAdminNotes());
-            receiptDTO.setStatus(receipt.getStatus().toString());
-            receiptDTO.setUploadedAt(receipt.getUploadedAt());
-            dto.setReceipt(receiptDTO);
+        if (row.getReceiptId() != null) {
+            dto.setReceipt(new InvoicePaymentResponseDTO.ReceiptInfoDTO(
+                    row.getReceiptId(),
+                    row.getReceiptAmount(),
+                    row.getReceiptFileUrl(),
+                    row.getReceiptNotes(),
+                    row.getReceiptAdminNotes(),
+                    row.getReceiptStatus().toString(),
+                    row.getReceiptUploadedAt()
+            ));
         }
         
         return dto;
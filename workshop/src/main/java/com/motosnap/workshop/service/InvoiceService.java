@@ -14,7 +14,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +30,9 @@ public class InvoiceService {
     @Autowired
     private RequestRepository requestRepository;
 
+    @Autowired
+    private InvoiceNumberAllocator invoiceNumberAllocator;
+
     /**
      * Generate invoice for a completed booking
      */
@@ -53,7 +55,7 @@ public class InvoiceService {
         BigDecimal partsAmount = calculatePartsAmount(bookingId);
 
         // Generate unique invoice number
-        String invoiceNumber = generateInvoiceNumber();
+        String invoiceNumber = invoiceNumberAllocator.nextInvoiceNumber();
 
         // Create and save invoice
         Invoice invoice = new Invoice(
@@ -84,33 +86,10 @@ public class InvoiceService {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
-    /**
-     * Generate unique invoice number in format: INV-YYYY-XXXXXX
-     */
-    private String generateInvoiceNumber() {
-        String yearMonth = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy"));
-        
-        // Find the highest invoice number for this year
-        String prefix = "INV-" + yearMonth + "-";
-        List<Invoice> yearlyInvoices = invoiceRepository.findAll().stream()
-                .filter(inv -> inv.getInvoiceNumber().startsWith(prefix))
-                .toList();
-
-        int nextNumber = yearlyInvoices.size() + 1;
-        
-        // Ensure uniqueness by checking if number exists
-        String candidate;
-        do {
-            candidate = prefix + String.format("%06d", nextNumber);
-            nextNumber++;
-        } while (invoiceRepository.existsByInvoiceNumber(candidate));
-
-        return candidate;
-    }
-
     /**
      * Get invoice by ID
      */
+    @Transactional(readOnly = true)
     public Invoice getInvoiceById(Long invoiceId) {
         return invoiceRepository.findById(invoiceId)
                 .orElseThrow(() -> new RuntimeException("Invoice not found"));
@@ -119,6 +98,7 @@ public class InvoiceService {
     /**
      * Get invoice by booking ID
      */
+    @Transactional(readOnly = true)
     public Optional<Invoice> getInvoiceByBookingId(Long bookingId) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
@@ -129,6 +109,7 @@ public class InvoiceService {
     /**
      * Get invoice response by booking ID
      */
+    @Transactional(readOnly = true)
     public InvoiceResponse getInvoiceResponseByBookingId(Long bookingId) {
         Optional<Invoice> invoiceOpt = getInvoiceByBookingId(bookingId);
         if (invoiceOpt.isEmpty()) {
@@ -141,6 +122,7 @@ public class InvoiceService {
     /**
      * Get all invoices for a customer
      */
+    @Transactional(readOnly = true)
     public List<Invoice> getInvoicesForCustomer(Long customerId) {
         return invoiceRepository.findByCustomer(
                 bookingRepository.findById(customerId)
@@ -161,6 +143,7 @@ public class InvoiceService {
     /**
      * Get recent invoices
      */
+    @Transactional(readOnly = true)
     public List<Invoice> getRecentInvoices(int days) {
         LocalDateTime since = LocalDateTime.now().minusDays(days);
         return invoiceRepository.findRecentInvoices(since);
@@ -169,6 +152,7 @@ public class InvoiceService {
     /**
      * Get monthly revenue statistics
      */
+    @Transactional(readOnly = true)
     public List<Object[]> getMonthlyRevenue(int monthsBack) {
         LocalDateTime since = LocalDateTime.now().minusMonths(monthsBack);
         return invoiceRepository.getMonthlyRevenue(since);
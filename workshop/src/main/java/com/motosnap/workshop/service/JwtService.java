@@ -1,11 +1,22 @@
 package com.motosnap.workshop.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.motosnap.workshop.config.JwtConfig;
 import com.motosnap.workshop.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.stereotype.Service;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -17,9 +28,33 @@ public class JwtService {
     private final JwtConfig jwtConfig;
     private final Key signingKey;
     
-    public JwtService(JwtConfig jwtConfig) {
+    // Tokens whose signature already checked out, keyed by SHA-256 of the token and dropped at its exp
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    
+    public JwtService(JwtConfig jwtConfig, MeterRegistry meterRegistry) {
         this.jwtConfig = jwtConfig;
         this.signingKey = Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes());
+        this.verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(jwtConfig.getVerifiedCacheMaxSize())
+            .expireAfter(new Expiry<String, VerifiedToken>() {
+                @Override
+                public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                    return Math.max(0, Duration.between(Instant.now(), token.getExpiresAt()).toNanos());
+                }
+                
+                @Override
+                public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+                
+                @Override
+                public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwtVerifiedTokens");
     }
     
     public String generateAccessToken(User user) {
@@ -32,10 +67,14 @@ public class JwtService {
         return createToken(claims, user.getEmail(), jwtConfig.getAccessTokenExpiration());
     }
     
-    public String generateRefreshToken(User user) {
+    /**
+     * @param jti unique id of this refresh token, used to rotate and revoke it
+     */
+    public String generateRefreshToken(User user, String jti) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("type", "refresh");
         claims.put("userId", user.getId());
+        claims.put(Claims.ID, jti);
         
         return createToken(claims, user.getEmail(), jwtConfig.getRefreshTokenExpiration());
     }
@@ -50,16 +89,37 @@ public class JwtService {
             .compact();
     }
     
+    /**
+     * Verify the signature and expiry of a token once and return its claims.
+     * Repeated calls with the same token are served from the verified-token cache
+     * until the token expires.
+     *
+     * @throws RuntimeException if the token is malformed, badly signed or expired
+     */
+    public VerifiedToken verify(String token) {
+        String key = hash(token);
+        VerifiedToken verified = verifiedTokens.getIfPresent(key);
+        if (verified == null) {
+            verified = VerifiedToken.from(extractAllClaims(token));
+            verifiedTokens.put(key, verified);
+        }
+        if (verified.isExpired()) {
+            verifiedTokens.invalidate(key);
+            throw new RuntimeException("JWT token has expired");
+        }
+        return verified;
+    }
+    
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).getSubject();
     }
     
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return Date.from(verify(token).getExpiresAt());
     }
     
     public String extractTokenType(String token) {
-        return extractClaim(token, claims -> claims.get("type", String.class));
+        return verify(token).getType();
     }
     
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -102,4 +162,14 @@ public class JwtService {
     public Boolean isRefreshToken(String token) {
         return "refresh".equals(extractTokenType(token));
     }
+    
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
\ No newline at end of file
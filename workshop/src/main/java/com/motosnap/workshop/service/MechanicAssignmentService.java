@@ -0,0 +1,82 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.entity.Booking;
+import com.motosnap.workshop.repository.BookingRepository;
+import com.motosnap.workshop.repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Automatic mechanic assignment from the booked-minutes queues in BookingAvailability.
+ *
+ * A booking confirmed without a mechanic gets the least loaded one who is free for
+ * its whole time. When nobody is, it stays unassigned until a mechanic's time frees
+ * up: completing or cancelling an assigned booking retries the day's unassigned
+ * confirmed bookings, earliest first. Bookings that already have a mechanic are
+ * never moved, so nobody's schedule changes under them.
+ */
+@Service
+public class MechanicAssignmentService {
+
+    private final BookingAvailability bookingAvailability;
+    private final BookingRepository bookingRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public MechanicAssignmentService(BookingAvailability bookingAvailability,
+                                     BookingRepository bookingRepository,
+                                     UserRepository userRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.bookingAvailability = bookingAvailability;
+        this.bookingRepository = bookingRepository;
+        this.userRepository = userRepository;
+        // Runs from after-commit hooks, where only a new transaction can write
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Assign the least loaded free mechanic to a held booking that has none.
+     * Returns false when every mechanic is busy at that time.
+     */
+    public boolean autoAssign(Booking booking) {
+        Long mechanicId = bookingAvailability.holdWithLeastLoadedMechanic(booking.getId());
+        if (mechanicId == null) {
+            return false;
+        }
+        booking.setAssignedMechanic(userRepository.getReferenceById(mechanicId));
+        return true;
+    }
+
+    /**
+     * Once the transaction commits, give the day's unassigned confirmed bookings to
+     * mechanics whose time has been freed.
+     */
+    public void rebalanceAfterCommit(LocalDate date) {
+        TransactionHooks.afterCommit(() -> {
+            try {
+                int assigned = transactionTemplate.execute(status -> {
+                    List<Booking> waiting = bookingRepository.findUnassignedConfirmedBetween(
+                        date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+                    int count = 0;
+                    for (Booking booking : waiting) {
+                        if (autoAssign(booking)) {
+                            count++;
+                        }
+                    }
+                    return count;
+                });
+                if (assigned > 0) {
+                    System.out.println("DEBUG: Assigned mechanics to " + assigned + " waiting bookings on " + date);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Failed to rebalance mechanics for " + date + ": " + e.getMessage());
+            }
+        });
+    }
+}
@@ -6,13 +6,21 @@ import com.motosnap.workshop.dto.InventoryResponse;
 import com.motosnap.workshop.entity.*;
 import com.motosnap.workshop.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,63 +46,75 @@ public class OrderService {
     private UserRepository userRepository;
 
     @Autowired
-    private InventoryRepository inventoryRepository;
+    private FileStorageService fileStorageService;
 
     @Autowired
-    private FileStorageService fileStorageService;
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private CartStore cartStore;
 
+    @Autowired
+    private SequenceIds sequenceIds;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Place an order for everything in the user's cart. The work is a fixed number of
+     * set-based statements whatever the size of the cart: the stock is reserved by one
+     * UPDATE, the order items and stock holds are copied from cart_items by INSERT ...
+     * SELECT, and the cart is emptied by one DELETE.
+     */
     public OrderResponse createOrderFromCart(String userEmail) {
+        // Cart changes still held by the write-behind store have to be in the rows read below
+        cartStore.flush(userEmail);
+
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        Cart cart = cartRepository.findByUser(user)
+        // Cart writers take the same lock, so the lines read here are the ones copied and deleted below
+        Cart cart = cartRepository.findByUserIdForUpdate(user.getId())
                 .orElseThrow(() -> new RuntimeException("Cart not found"));
 
-        if (cart.getCartItems() == null || cart.getCartItems().isEmpty()) {
-            throw new RuntimeException("Cart is empty");
+        Map<Long, Integer> quantities = new HashMap<>();
+        List<Long> cartItemIds = new ArrayList<>();
+        for (Object[] line : cartItemRepository.findLinesByCartId(cart.getId())) {
+            cartItemIds.add((Long) line[0]);
+            quantities.merge((Long) line[1], (Integer) line[2], Integer::sum);
         }
-
-        // Verify stock availability before creating order
-        for (CartItem cartItem : cart.getCartItems()) {
-            Inventory inventory = cartItem.getInventory();
-            if (inventory.getQty() < cartItem.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for item: " + inventory.getPartName() + 
-                    ". Available: " + inventory.getQty() + ", Required: " + cartItem.getQuantity());
-            }
+        if (quantities.isEmpty()) {
+            throw new RuntimeException("Cart is empty");
         }
 
-        // Create order
+        // Create order; written now because the statements below refer to its row
         Order order = new Order();
         order.setUser(user);
         order.setStatus(OrderStatus.PENDING);
-        order = orderRepository.save(order);
+        order = orderRepository.saveAndFlush(order);
 
-        // Create order items and deduct inventory
-        List<OrderItem> orderItems = new ArrayList<>();
-        for (CartItem cartItem : cart.getCartItems()) {
-            OrderItem orderItem = new OrderItem();
-            orderItem.setOrder(order);
-            orderItem.setPart(cartItem.getInventory());
-            orderItem.setQty(cartItem.getQuantity());
-            orderItem.setPrice(BigDecimal.valueOf(cartItem.getUnitPrice()));
-            orderItemRepository.save(orderItem);
-            orderItems.add(orderItem);
-
-            // Deduct from inventory
-            Inventory inventory = cartItem.getInventory();
-            inventory.setQty(inventory.getQty() - cartItem.getQuantity());
-            inventoryRepository.save(inventory);
-        }
+        // Hold the stock until the order is paid for; a short line fails the whole checkout
+        stockReservationService.reserveCartForOrder(order, cart.getId(), quantities);
+
+        // Copy the lines into order items, at the prices the cart captured
+        List<Object> args = new ArrayList<>();
+        String id = SequenceIds.idByKey("ci.id", cartItemIds, sequenceIds.next(OrderItem.class, cartItemIds.size()), args);
+        args.add(order.getId());
+        args.add(cart.getId());
+        jdbcTemplate.update("INSERT INTO order_items (id, order_id, part_id, qty, price) " +
+                "SELECT " + id + ", ?, ci.inventory_id, ci.quantity, ci.unit_price FROM cart_items ci WHERE ci.cart_id = ?",
+                args.toArray());
 
         // Clear the cart items but keep the cart
-        cartItemRepository.deleteAll(cart.getCartItems());
-        cart.getCartItems().clear();
-        cartRepository.save(cart);
+        cartItemRepository.deleteByCartId(cart.getId());
+        cartStore.removeItemsAfterCommit(user.getId(), cartItemIds);
 
-        order.setOrderItems(orderItems);
+        // Added to the managed collection; replacing it would make Hibernate update the order
+        order.getOrderItems().addAll(orderItemRepository.findByOrderIdWithPart(order.getId()));
         return convertToOrderResponse(order);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderResponse> getUserOrders(String userEmail) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -106,6 +126,7 @@ public class OrderService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public OrderResponse getOrderById(String userEmail, Long orderId) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -135,6 +156,9 @@ public class OrderService {
             throw new RuntimeException("Receipt can only be uploaded for pending or rejected orders");
         }
 
+        // Keep (or take back) the order's stock while the payment is reviewed
+        stockReservationService.holdForReview(order);
+
         String fileName = fileStorageService.storeFile(file);
 
         // Check if receipt already exists (for rejected orders)
@@ -156,6 +180,7 @@ public class OrderService {
             receipt.setAmount(BigDecimal.valueOf(receiptAmount));
             receipt.setNotes(notes);
             receipt.setStatus(ReceiptStatus.PENDING);
+            order.setReceipt(receipt);
         }
         
         receiptRepository.save(receipt);
@@ -171,17 +196,40 @@ public class OrderService {
     }
 
     // Admin order management methods
+    @Transactional(readOnly = true)
     public List<OrderResponse> getAllOrders() {
-        List<Order> orders = orderRepository.findAll()
-                .stream()
-                .sorted((o1, o2) -> o2.getCreatedAt().compareTo(o1.getCreatedAt())) // Latest first
-                .collect(Collectors.toList());
-        
-        return orders.stream()
+        // Sorted by the database; items, parts and receipts come from the same query
+        return orderRepository.findAllWithItemsAndReceipt().stream()
                 .map(this::convertToOrderResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Paginated admin order feed, newest first. Optional filters: status, creation
+     * date range (inclusive days) and customer name or email. Runs a fixed number of
+     * queries per page: ids, count, and one fetch of orders with items, parts and receipts.
+     */
+    @Transactional(readOnly = true)
+    public Page<OrderResponse> getAllOrders(OrderStatus status, LocalDate fromDate, LocalDate toDate,
+                                            String customer, Pageable pageable) {
+        LocalDateTime from = fromDate != null ? fromDate.atStartOfDay() : null;
+        LocalDateTime to = toDate != null ? toDate.plusDays(1).atStartOfDay() : null;
+        String customerPattern = customer != null && !customer.trim().isEmpty()
+                ? "%" + customer.trim().toLowerCase() + "%"
+                : null;
+
+        Page<Long> ids = orderRepository.findAdminOrderIds(status, from, to, customerPattern, pageable);
+        if (ids.isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), pageable, ids.getTotalElements());
+        }
+
+        Map<Long, Order> ordersById = new HashMap<>();
+        for (Order order : orderRepository.findWithItemsAndReceiptByIdIn(ids.getContent())) {
+            ordersById.put(order.getId(), order);
+        }
+        return ids.map(id -> convertToOrderResponse(ordersById.get(id)));
+    }
+
     public OrderResponse approveOrder(String adminEmail, Long orderId) {
         User admin = userRepository.findByEmail(adminEmail)
                 .orElseThrow(() -> new RuntimeException("Admin user not found"));
@@ -201,9 +249,10 @@ public class OrderService {
         Receipt receipt = receiptRepository.findByOrder(order)
                 .orElseThrow(() -> new RuntimeException("No receipt found for this order"));
 
-        // Update order status
+        // Update order status; the reserved stock now leaves the shelf
         order.setStatus(OrderStatus.APPROVED);
         order = orderRepository.save(order);
+        stockReservationService.commitForOrder(order);
 
         // Update receipt status
         receipt.setStatus(ReceiptStatus.APPROVED);
@@ -233,9 +282,10 @@ public class OrderService {
         Receipt receipt = receiptRepository.findByOrder(order)
                 .orElseThrow(() -> new RuntimeException("No receipt found for this order"));
 
-        // Update order status
+        // Update order status and give the reserved stock back
         order.setStatus(OrderStatus.REJECTED);
         order = orderRepository.save(order);
+        stockReservationService.releaseForOrder(order);
 
         // Update receipt status
         receipt.setStatus(ReceiptStatus.REJECTED);
@@ -249,6 +299,7 @@ public class OrderService {
         return convertToOrderResponse(order);
     }
 
+    @Transactional(readOnly = true)
     public String getReceiptFileName(Long orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
@@ -281,9 +332,7 @@ public class OrderService {
         response.setCreatedAt(order.getCreatedAt());
         response.setUpdatedAt(order.getUpdatedAt());
         
-        // Check if order has receipt
-        boolean hasReceipt = receiptRepository.findByOrder(order).isPresent();
-        response.setHasReceipt(hasReceipt);
+        response.setHasReceipt(order.getReceipt() != null);
         
         return response;
     }
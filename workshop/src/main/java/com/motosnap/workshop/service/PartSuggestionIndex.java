@@ -0,0 +1,416 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.dto.PartSuggestion;
+import com.motosnap.workshop.entity.Inventory;
+import com.motosnap.workshop.repository.InventoryRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Prefix trie used for typo-tolerant autocomplete of part names, codes and brands.
+ *
+ * Keys are the normalized part code, brand, full part name and every word of the
+ * name, so "pad" finds "Brake Pad Front". Lookups first follow the query as an
+ * exact prefix; if that does not fill the limit, the trie is walked with a
+ * Levenshtein row per node and any branch whose best cell already exceeds the
+ * allowed edit distance is pruned. Expansion stops once enough parts are collected.
+ *
+ * The trie holds no stock; quantities are read from StockAvailability when the
+ * suggestions are built, so a re-index never overwrites stock committed meanwhile.
+ */
+@Component
+public class PartSuggestionIndex {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+
+    // Longer keys add trie nodes without helping anyone who is still typing
+    private static final int MAX_KEY_LENGTH = 32;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final InventoryRepository inventoryRepository;
+    private final StockAvailability stockAvailability;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node();
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    private volatile boolean ready;
+
+    public PartSuggestionIndex(InventoryRepository inventoryRepository, StockAvailability stockAvailability) {
+        this.inventoryRepository = inventoryRepository;
+        this.stockAvailability = stockAvailability;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        List<Inventory> parts = inventoryRepository.findAllNonDeleted();
+        lock.writeLock().lock();
+        try {
+            root.clear();
+            entries.clear();
+            for (Inventory part : parts) {
+                add(Entry.of(part));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("DEBUG: Part suggestion index built with " + parts.size() + " parts");
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Index (or re-index) a part once the surrounding transaction commits.
+     * Deleted and inactive parts are not suggested.
+     */
+    public void indexAfterCommit(Inventory inventory) {
+        Entry entry = Entry.of(inventory);
+        TransactionHooks.afterCommit(() -> {
+            if (entry.suggestable) {
+                put(entry);
+            } else {
+                remove(entry.id);
+            }
+        });
+    }
+
+    public void removeAfterCommit(Long inventoryId) {
+        TransactionHooks.afterCommit(() -> remove(inventoryId));
+    }
+
+    /**
+     * Suggest up to {@code limit} parts whose name, code or brand starts with the
+     * query, allowing a few typos. Exact prefix matches rank ahead of fuzzy ones,
+     * and the fuzzy walk only runs when exact matches do not fill the limit.
+     */
+    public List<PartSuggestion> suggest(String query, int limit) {
+        String term = normalize(query);
+        if (term.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        if (term.length() > MAX_KEY_LENGTH) {
+            term = term.substring(0, MAX_KEY_LENGTH);
+        }
+        int maxEdits = maxEditsFor(term);
+
+        List<Entry> found;
+        lock.readLock().lock();
+        try {
+            Set<Long> ids = new LinkedHashSet<>();
+            Node exact = root;
+            for (int i = 0; i < term.length() && exact != null; i++) {
+                exact = exact.child(term.charAt(i));
+            }
+            if (exact != null) {
+                expand(exact, ids, limit);
+            }
+
+            // Typos in the first character are rare, so the fuzzy walk starts below it
+            Node first = root.child(term.charAt(0));
+            if (ids.size() < limit && maxEdits > 0 && first != null) {
+                int[][] rows = new int[MAX_KEY_LENGTH + 1][term.length() + 1];
+                for (int i = 0; i <= term.length(); i++) {
+                    rows[0][i] = i;
+                }
+                List<Match> matches = new ArrayList<>();
+                collectMatches(first, term.charAt(0), term, rows, 1, maxEdits, maxEdits + 1, matches);
+                matches.sort(Comparator.comparingInt((Match m) -> m.distance).thenComparingInt(m -> m.depth));
+                for (Match match : matches) {
+                    if (ids.size() >= limit) {
+                        break;
+                    }
+                    expand(match.node, ids, limit);
+                }
+            }
+
+            found = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                found.add(entries.get(id));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<PartSuggestion> suggestions = new ArrayList<>(found.size());
+        for (Entry entry : found) {
+            // A part created or deleted a moment ago may not be in StockAvailability yet
+            int qty = stockAvailability.getAvailable(entry.id);
+            suggestions.add(new PartSuggestion(entry.id, entry.name, entry.code, qty != StockAvailability.UNKNOWN ? qty : 0));
+        }
+        return suggestions;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Depth-first walk computing one Levenshtein row per node into a reused
+     * buffer. A node is recorded when its prefix is within {@code maxEdits} of the
+     * query and no ancestor already matched at the same or a smaller distance.
+     * Exact prefixes are skipped, the exact pass has already expanded them.
+     */
+    private static void collectMatches(Node node, char label, String term, int[][] rows, int depth,
+                                       int maxEdits, int bestAncestorDistance, List<Match> matches) {
+        int[] previousRow = rows[depth - 1];
+        int[] row = rows[depth];
+        int columns = term.length() + 1;
+        row[0] = depth;
+        int rowMin = row[0];
+        for (int i = 1; i < columns; i++) {
+            int cost = term.charAt(i - 1) == label ? 0 : 1;
+            row[i] = Math.min(Math.min(row[i - 1] + 1, previousRow[i] + 1), previousRow[i - 1] + cost);
+            rowMin = Math.min(rowMin, row[i]);
+        }
+        if (rowMin > maxEdits) {
+            return;
+        }
+
+        int distance = row[columns - 1];
+        if (distance == 0) {
+            return;
+        }
+        int bestDistance = bestAncestorDistance;
+        if (distance <= maxEdits && distance < bestAncestorDistance) {
+            matches.add(new Match(node, distance, depth));
+            bestDistance = distance;
+        }
+        if (depth == MAX_KEY_LENGTH) {
+            return;
+        }
+        for (int i = 0; i < node.size; i++) {
+            collectMatches(node.children[i], node.labels[i], term, rows, depth + 1, maxEdits, bestDistance, matches);
+        }
+    }
+
+    /**
+     * Collect ids below a node depth-first in label order, a node's own parts
+     * before those of longer keys, stopping as soon as the limit is reached.
+     */
+    private static void expand(Node node, Set<Long> ids, int limit) {
+        for (int i = 0; i < node.idCount && ids.size() < limit; i++) {
+            ids.add(node.ids[i]);
+        }
+        for (int i = 0; i < node.size && ids.size() < limit; i++) {
+            expand(node.children[i], ids, limit);
+        }
+    }
+
+    private void put(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            removeKeys(entries.remove(entry.id));
+            add(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeKeys(entries.remove(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Entry entry) {
+        if (!entry.suggestable) {
+            return;
+        }
+        entries.put(entry.id, entry);
+        for (String key : entry.keys) {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.childFor(key.charAt(i));
+            }
+            node.addId(entry.id);
+        }
+    }
+
+    private void removeKeys(Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        for (String key : entry.keys) {
+            removeKey(root, key, 0, entry.id);
+        }
+    }
+
+    /**
+     * Remove the id from the node at the end of the key and prune nodes left empty.
+     * Returns true when the node itself became empty.
+     */
+    private static boolean removeKey(Node node, String key, int position, long id) {
+        if (position == key.length()) {
+            node.removeId(id);
+        } else {
+            char label = key.charAt(position);
+            Node child = node.child(label);
+            if (child != null && removeKey(child, key, position + 1, id)) {
+                node.removeChild(label);
+            }
+        }
+        return node.idCount == 0 && node.size == 0;
+    }
+
+    /**
+     * Allowed typos grow with the query: none for one or two characters,
+     * one up to five characters and two beyond that.
+     */
+    static int maxEditsFor(String term) {
+        if (term.length() <= 2) {
+            return 0;
+        }
+        return term.length() <= 5 ? 1 : 2;
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(value.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+
+    private record Match(Node node, int distance, int depth) {
+    }
+
+    /**
+     * Trie node with children kept in parallel arrays sorted by label, which is
+     * far smaller than a map per node and fast to scan for the handful of
+     * children a node usually has.
+     */
+    private static final class Node {
+        private static final char[] NO_LABELS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final long[] NO_IDS = new long[0];
+
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private int size;
+        private long[] ids = NO_IDS;
+        private int idCount;
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, 0, size, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childFor(char label) {
+            int index = Arrays.binarySearch(labels, 0, size, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            if (size == labels.length) {
+                int capacity = Math.max(2, size * 2);
+                labels = Arrays.copyOf(labels, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(labels, insertAt, labels, insertAt + 1, size - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, size - insertAt);
+            Node child = new Node();
+            labels[insertAt] = label;
+            children[insertAt] = child;
+            size++;
+            return child;
+        }
+
+        void removeChild(char label) {
+            int index = Arrays.binarySearch(labels, 0, size, label);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(labels, index + 1, labels, index, size - index - 1);
+            System.arraycopy(children, index + 1, children, index, size - index - 1);
+            size--;
+            children[size] = null;
+        }
+
+        // Entry keys are a set and old keys are removed before re-indexing, so no duplicate check
+        void addId(long id) {
+            if (idCount == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(1, idCount * 2));
+            }
+            ids[idCount++] = id;
+        }
+
+        void removeId(long id) {
+            for (int i = 0; i < idCount; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--idCount];
+                    return;
+                }
+            }
+        }
+
+        void clear() {
+            labels = NO_LABELS;
+            children = NO_CHILDREN;
+            size = 0;
+            ids = NO_IDS;
+            idCount = 0;
+        }
+    }
+
+    private static final class Entry {
+        final Long id;
+        final String name;
+        final String code;
+        final boolean suggestable;
+        final Set<String> keys;
+
+        private Entry(Long id, String name, String code, boolean suggestable, Set<String> keys) {
+            this.id = id;
+            this.name = name;
+            this.code = code;
+            this.suggestable = suggestable;
+            this.keys = keys;
+        }
+
+        static Entry of(Inventory inventory) {
+            Set<String> keys = new LinkedHashSet<>();
+            addKey(keys, inventory.getPartCode());
+            addKey(keys, inventory.getBrand());
+            String name = normalize(inventory.getPartName());
+            addKey(keys, name);
+            for (String word : name.split(" ")) {
+                addKey(keys, word);
+            }
+            boolean suggestable = Boolean.TRUE.equals(inventory.getActive())
+                    && !Boolean.TRUE.equals(inventory.getDeleted());
+            return new Entry(inventory.getId(), inventory.getPartName(), inventory.getPartCode(),
+                    suggestable, keys);
+        }
+
+        private static void addKey(Set<String> keys, String value) {
+            String key = normalize(value);
+            if (key.isEmpty()) {
+                return;
+            }
+            keys.add(key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.config.CacheConfig;
+import com.motosnap.workshop.entity.Inventory;
+import com.motosnap.workshop.repository.InventoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * The parts catalog rows behind the partsCatalog cache. Their stock columns are never
+ * served: InventoryService fills quantities from StockAvailability on every response,
+ * so stock changes leave the cache alone and only catalog edits evict it.
+ */
+@Component
+@RequiredArgsConstructor
+public class PartsCatalogCache {
+
+    private final InventoryRepository inventoryRepository;
+
+    /**
+     * The generation from CatalogCacheEvictor is the key. A load still running when an
+     * edit clears the cache stores the old rows under the old generation, which no
+     * later read asks for.
+     */
+    @Cacheable(cacheNames = CacheConfig.PARTS_CATALOG, key = "#generation", sync = true)
+    @Transactional(readOnly = true)
+    public List<Inventory> load(long generation) {
+        return List.copyOf(inventoryRepository.findAllNonDeleted());
+    }
+}
@@ -0,0 +1,480 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.entity.Inventory;
+import com.motosnap.workshop.repository.InventoryRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the parts catalog.
+ *
+ * Part name, code, category and brand are indexed by trigram so substring
+ * searches can be answered without LIKE '%term%' table scans. Descriptions are
+ * indexed by word and match when they contain every word of the query. Category
+ * and brand filters are served from exact-match postings. The postings only narrow
+ * the candidates; score() decides what matches, so searchParts() can give the same
+ * answer by scanning parts loaded from the database. Each document gets an ordinal when it is indexed; postings hold
+ * ordinals in ascending order, so intersections are plain merges. Updates
+ * retire the old ordinal and compaction reclaims retired ones.
+ */
+@Component
+public class PartsSearchIndex {
+
+    private static final int COMPACTION_THRESHOLD = 1000;
+    // Every score from this one up is a name or part code match
+    private static final int NAME_OR_CODE_SCORE = 30;
+
+    private final InventoryRepository inventoryRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<IndexedPart> documents = new ArrayList<>();
+    private final Map<Long, Integer> ordinalsById = new HashMap<>();
+    private final Map<String, Postings> trigramPostings = new HashMap<>();
+    private final Map<String, Postings> wordPostings = new HashMap<>();
+    private final Map<String, Postings> categoryPostings = new HashMap<>();
+    private final Map<String, Postings> brandPostings = new HashMap<>();
+    private int retiredDocuments;
+
+    private volatile boolean ready;
+
+    public PartsSearchIndex(InventoryRepository inventoryRepository) {
+        this.inventoryRepository = inventoryRepository;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        List<Inventory> parts = inventoryRepository.findAllNonDeleted();
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (Inventory part : parts) {
+                add(IndexedPart.of(part));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("DEBUG: Parts search index built with " + parts.size() + " parts");
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Index (or re-index) a part once the surrounding transaction commits.
+     * Deleted parts are removed from the index.
+     */
+    public void indexAfterCommit(Inventory inventory) {
+        IndexedPart snapshot = IndexedPart.of(inventory);
+        TransactionHooks.afterCommit(() -> {
+            if (snapshot.deleted) {
+                remove(snapshot.id);
+            } else {
+                put(snapshot);
+            }
+        });
+    }
+
+    public void removeAfterCommit(Long inventoryId) {
+        TransactionHooks.afterCommit(() -> remove(inventoryId));
+    }
+
+    /**
+     * Search the catalog and return part ids ordered by relevance.
+     *
+     * @param query      free text matched against name, code, category, brand and description
+     * @param category   optional exact category filter (case-insensitive)
+     * @param brand      optional exact brand filter (case-insensitive)
+     * @param activeOnly when true, inactive parts are skipped
+     */
+    public List<Long> search(String query, String category, String brand, boolean activeOnly) {
+        return search(query, category, brand, activeOnly, 1);
+    }
+
+    /**
+     * Non-deleted parts, active or not, whose name or part code contains the query,
+     * ordered by relevance.
+     */
+    public List<Long> searchNameOrCode(String query) {
+        return search(query, null, null, false, NAME_OR_CODE_SCORE);
+    }
+
+    public List<Long> findByCategory(String category, boolean activeOnly) {
+        return search(null, category, null, activeOnly);
+    }
+
+    public List<Long> findByBrand(String brand, boolean activeOnly) {
+        return search(null, null, brand, activeOnly);
+    }
+
+    /**
+     * The same search as {@link #search} over parts loaded from the database, for
+     * callers that run before the index is built. Deleted parts are skipped.
+     */
+    public static List<Long> searchParts(List<Inventory> parts, String query, String category, String brand,
+                                         boolean activeOnly) {
+        String term = normalize(query);
+        String categoryFilter = normalize(category);
+        String brandFilter = normalize(brand);
+        List<Scored> hits = new ArrayList<>();
+        for (Inventory inventory : parts) {
+            IndexedPart part = IndexedPart.of(inventory);
+            if (part.deleted
+                    || (!categoryFilter.isEmpty() && !part.category.equals(categoryFilter))
+                    || (!brandFilter.isEmpty() && !part.brand.equals(brandFilter))) {
+                continue;
+            }
+            collect(part, term, activeOnly, 1, hits);
+        }
+        return ranked(hits);
+    }
+
+    private List<Long> search(String query, String category, String brand, boolean activeOnly, int minScore) {
+        String term = normalize(query);
+        lock.readLock().lock();
+        try {
+            int[] candidates = term.isEmpty() ? null : candidatesFor(term);
+            int[] filter = filterFor(category, brand);
+            if (filter != null) {
+                candidates = candidates == null ? filter : intersect(candidates, filter);
+            }
+
+            List<Scored> hits = new ArrayList<>();
+            if (candidates == null) {
+                // No usable postings (short query and no filter): scan the live documents
+                for (IndexedPart part : documents) {
+                    collect(part, term, activeOnly, minScore, hits);
+                }
+            } else {
+                for (int ordinal : candidates) {
+                    collect(documents.get(ordinal), term, activeOnly, minScore, hits);
+                }
+            }
+            return ranked(hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<Long> ranked(List<Scored> hits) {
+        hits.sort(Comparator.comparingInt((Scored s) -> s.score).reversed()
+                .thenComparing(s -> s.part.name));
+        List<Long> ids = new ArrayList<>(hits.size());
+        for (Scored hit : hits) {
+            ids.add(hit.part.id);
+        }
+        return ids;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(IndexedPart part) {
+        lock.writeLock().lock();
+        try {
+            retire(part.id);
+            add(part);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            retire(id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(IndexedPart part) {
+        int ordinal = documents.size();
+        documents.add(part);
+        ordinalsById.put(part.id, ordinal);
+
+        for (String field : new String[] {part.name, part.code, part.category, part.brand}) {
+            for (String gram : trigrams(field)) {
+                trigramPostings.computeIfAbsent(gram, k -> new Postings()).add(ordinal);
+            }
+        }
+        for (String word : part.descriptionWords) {
+            wordPostings.computeIfAbsent(word, k -> new Postings()).add(ordinal);
+        }
+        if (!part.category.isEmpty()) {
+            categoryPostings.computeIfAbsent(part.category, k -> new Postings()).add(ordinal);
+        }
+        if (!part.brand.isEmpty()) {
+            brandPostings.computeIfAbsent(part.brand, k -> new Postings()).add(ordinal);
+        }
+    }
+
+    private void retire(Long id) {
+        Integer ordinal = ordinalsById.remove(id);
+        if (ordinal != null) {
+            documents.set(ordinal, null);
+            retiredDocuments++;
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (retiredDocuments < COMPACTION_THRESHOLD || retiredDocuments < ordinalsById.size()) {
+            return;
+        }
+        List<IndexedPart> live = new ArrayList<>(ordinalsById.size());
+        for (IndexedPart part : documents) {
+            if (part != null) {
+                live.add(part);
+            }
+        }
+        clear();
+        for (IndexedPart part : live) {
+            add(part);
+        }
+    }
+
+    private void clear() {
+        documents.clear();
+        ordinalsById.clear();
+        trigramPostings.clear();
+        wordPostings.clear();
+        categoryPostings.clear();
+        brandPostings.clear();
+        retiredDocuments = 0;
+    }
+
+    private int[] candidatesFor(String term) {
+        Set<String> grams = trigrams(term);
+        if (grams.isEmpty()) {
+            return null;
+        }
+
+        List<Postings> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            Postings postings = trigramPostings.get(gram);
+            if (postings == null) {
+                lists.clear();
+                break;
+            }
+            lists.add(postings);
+        }
+        int[] result = intersectAll(lists);
+
+        // Description matches come from the word postings
+        List<String> queryWords = words(term);
+        if (!queryWords.isEmpty()) {
+            List<Postings> wordLists = new ArrayList<>(queryWords.size());
+            for (String word : queryWords) {
+                Postings postings = wordPostings.get(word);
+                if (postings == null) {
+                    wordLists.clear();
+                    break;
+                }
+                wordLists.add(postings);
+            }
+            result = union(result, intersectAll(wordLists));
+        }
+        return result;
+    }
+
+    private int[] filterFor(String category, String brand) {
+        int[] filter = null;
+        if (category != null && !category.isBlank()) {
+            Postings postings = categoryPostings.get(normalize(category));
+            filter = postings == null ? new int[0] : postings.toArray();
+        }
+        if (brand != null && !brand.isBlank()) {
+            Postings postings = brandPostings.get(normalize(brand));
+            int[] brandFilter = postings == null ? new int[0] : postings.toArray();
+            filter = filter == null ? brandFilter : intersect(filter, brandFilter);
+        }
+        return filter;
+    }
+
+    private static void collect(IndexedPart part, String term, boolean activeOnly, int minScore, List<Scored> hits) {
+        if (part == null || (activeOnly && !part.active)) {
+            return;
+        }
+        int score = term.isEmpty() ? NAME_OR_CODE_SCORE : score(part, term);
+        if (score >= minScore) {
+            hits.add(new Scored(part, score));
+        }
+    }
+
+    /**
+     * Relevance ranking: exact code/name matches first, then prefixes,
+     * word-prefixes, substrings, and finally category, brand or description hits.
+     * Every part this scores above zero is among the candidates from the postings.
+     */
+    private static int score(IndexedPart part, String term) {
+        if (part.code.equals(term)) {
+            return 100;
+        }
+        if (part.name.equals(term)) {
+            return 90;
+        }
+        if (part.code.startsWith(term)) {
+            return 70;
+        }
+        if (part.name.startsWith(term)) {
+            return 60;
+        }
+        if (part.name.contains(" " + term)) {
+            return 45;
+        }
+        if (part.code.contains(term)) {
+            return 35;
+        }
+        if (part.name.contains(term)) {
+            return 30;
+        }
+        if (part.brand.contains(term) || part.category.contains(term)) {
+            return 15;
+        }
+        List<String> queryWords = words(term);
+        if (!queryWords.isEmpty() && part.descriptionWords.containsAll(queryWords)) {
+            return 10;
+        }
+        return 0;
+    }
+
+    private static int[] intersectAll(List<Postings> lists) {
+        if (lists.isEmpty()) {
+            return new int[0];
+        }
+        lists.sort(Comparator.comparingInt(p -> p.size));
+        int[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i).toArray());
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                out[n++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            if (j >= b.length || (i < a.length && a[i] < b[j])) {
+                out[n++] = a[i++];
+            } else if (i >= a.length || b[j] < a[i]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static Set<String> trigrams(String value) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= value.length(); i++) {
+            grams.add(value.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static List<String> words(String value) {
+        List<String> result = new ArrayList<>();
+        for (String word : value.split("[^\\p{Alnum}]+")) {
+            if (word.length() >= 2) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Append-only list of document ordinals. Ordinals are handed out in
+     * increasing order, so every list stays sorted without extra work.
+     */
+    private static final class Postings {
+        private int[] ordinals = new int[4];
+        private int size;
+
+        void add(int ordinal) {
+            if (size > 0 && ordinals[size - 1] == ordinal) {
+                return;
+            }
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ordinals, size);
+        }
+    }
+
+    private static final class IndexedPart {
+        final Long id;
+        final String name;
+        final String code;
+        final Set<String> descriptionWords;
+        final String category;
+        final String brand;
+        final boolean active;
+        final boolean deleted;
+
+        private IndexedPart(Inventory inventory) {
+            this.id = inventory.getId();
+            this.name = normalize(inventory.getPartName());
+            this.code = normalize(inventory.getPartCode());
+            this.descriptionWords = new LinkedHashSet<>(words(normalize(inventory.getDescription())));
+            this.category = normalize(inventory.getCategory());
+            this.brand = normalize(inventory.getBrand());
+            this.active = Boolean.TRUE.equals(inventory.getActive());
+            this.deleted = Boolean.TRUE.equals(inventory.getDeleted());
+        }
+
+        static IndexedPart of(Inventory inventory) {
+            return new IndexedPart(inventory);
+        }
+    }
+
+    private record Scored(IndexedPart part, int score) {
+    }
+}
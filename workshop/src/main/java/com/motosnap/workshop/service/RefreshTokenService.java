@@ -0,0 +1,193 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.config.JwtConfig;
+import com.motosnap.workshop.entity.RefreshToken;
+import com.motosnap.workshop.entity.User;
+import com.motosnap.workshop.repository.RefreshTokenRepository;
+import com.motosnap.workshop.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * Issues, rotates and revokes refresh tokens.
+ *
+ * Every refresh token carries a jti and has a row in refresh_tokens. A token can
+ * be used once: refreshing revokes it with a conditional UPDATE and issues a new
+ * one. If a token that was already rotated comes back, a copy has leaked, so all
+ * of the user's refresh tokens and current access tokens are revoked.
+ *
+ * Revoked ids that have not expired are also kept in memory (RevokedTokenSet).
+ * A refresh with a revoked token is therefore refused without reading the
+ * database, and a normal refresh costs a single bit check before the rotation
+ * UPDATE. The database stays the source of truth: a revocation made on another
+ * node is still caught by the conditional UPDATE. Ids are only added once the
+ * revoking transaction commits, so a rotation that fails to save its replacement
+ * leaves the old token usable instead of treating the retry as reuse.
+ */
+@Service
+@Transactional
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final JwtService jwtService;
+    private final JwtConfig jwtConfig;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final RevokedTokenSet revokedTokens;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               UserRepository userRepository,
+                               JwtService jwtService,
+                               JwtConfig jwtConfig,
+                               TokenRevocationRegistry tokenRevocationRegistry,
+                               @Value("${jwt.refresh.revocation-filter.expected-entries:100000}") int expectedEntries) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.jwtService = jwtService;
+        this.jwtConfig = jwtConfig;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
+        this.revokedTokens = new RevokedTokenSet(expectedEntries, 0.01);
+    }
+
+    @PostConstruct
+    public void loadRevokedTokens() {
+        for (Object[] row : refreshTokenRepository.findRevokedUnexpired(LocalDateTime.now())) {
+            revokedTokens.add((String) row[0], toInstant((LocalDateTime) row[1]), row[2] != null);
+        }
+        System.out.println("DEBUG: Loaded " + revokedTokens.size() + " revoked refresh tokens");
+    }
+
+    /**
+     * Issue and store a new refresh token for a user
+     */
+    public String issue(User user) {
+        String jti = UUID.randomUUID().toString();
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(jwtConfig.getRefreshTokenExpiration() * 1_000_000L);
+        refreshTokenRepository.save(new RefreshToken(jti, user, expiresAt));
+        return jwtService.generateRefreshToken(user, jti);
+    }
+
+    /**
+     * Use a refresh token: revoke it and issue its replacement.
+     *
+     * @throws RuntimeException if the token is invalid, expired, revoked or already used
+     */
+    // The revocations made on reuse must survive the exception
+    @Transactional(noRollbackFor = TokenReuseException.class)
+    public Rotation rotate(String refreshToken) {
+        VerifiedToken token = verifyRefreshToken(refreshToken);
+        if (revokedTokens.contains(token.getId())) {
+            if (revokedTokens.isRotated(token.getId())) {
+                // Already rotated once, so someone else holds a copy: end all of the user's sessions
+                revokeAllForUser(token.getUserId());
+                throw new TokenReuseException();
+            }
+            throw new RuntimeException("Refresh token has been revoked");
+        }
+
+        User user = userRepository.findByEmailAndActive(token.getSubject(), true)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        String jti = UUID.randomUUID().toString();
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(jwtConfig.getRefreshTokenExpiration() * 1_000_000L);
+        if (refreshTokenRepository.revokeIfActive(token.getId(), jti) == 0) {
+            // Revoked or rotated on another node: the row tells which
+            RefreshToken used = refreshTokenRepository.findById(token.getId())
+                    .orElseThrow(() -> new RuntimeException("Refresh token is not recognised"));
+            rememberRevoked(token.getId(), token.getExpiresAt(), used.getReplacedBy() != null);
+            if (used.getReplacedBy() == null) {
+                throw new RuntimeException("Refresh token has been revoked");
+            }
+            revokeAllForUser(user.getId());
+            throw new TokenReuseException();
+        }
+        rememberRevoked(token.getId(), token.getExpiresAt(), true);
+
+        refreshTokenRepository.save(new RefreshToken(jti, user, expiresAt));
+        return new Rotation(user, jwtService.generateRefreshToken(user, jti));
+    }
+
+    /**
+     * Revoke one refresh token, e.g. on logout
+     */
+    public void revoke(String refreshToken) {
+        VerifiedToken token = verifyRefreshToken(refreshToken);
+        if (refreshTokenRepository.revokeIfActive(token.getId(), null) > 0) {
+            rememberRevoked(token.getId(), token.getExpiresAt(), false);
+        }
+    }
+
+    /**
+     * Revoke every refresh token and current access token of a user
+     */
+    public void revokeAllForUser(Long userId) {
+        for (Object[] row : refreshTokenRepository.findActiveByUserId(userId)) {
+            rememberRevoked((String) row[0], toInstant((LocalDateTime) row[1]), false);
+        }
+        refreshTokenRepository.revokeAllByUserId(userId);
+        TransactionHooks.afterCommit(() -> tokenRevocationRegistry.revokeUser(userId));
+    }
+
+    /**
+     * Subject of a valid refresh token
+     */
+    public Long getUserId(String refreshToken) {
+        return verifyRefreshToken(refreshToken).getUserId();
+    }
+
+    /**
+     * Forget tokens that have expired: they fail signature checks on their own now.
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh.cleanup-interval-ms:3600000}")
+    public void removeExpiredTokens() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        revokedTokens.prune(Instant.now());
+        System.out.println("DEBUG: Removed " + deleted + " expired refresh tokens, " + revokedTokens.size() + " revoked still tracked");
+    }
+
+    private void rememberRevoked(String jti, Instant expiresAt, boolean rotated) {
+        TransactionHooks.afterCommit(() -> revokedTokens.add(jti, expiresAt, rotated));
+    }
+
+    private VerifiedToken verifyRefreshToken(String refreshToken) {
+        VerifiedToken token = jwtService.verify(refreshToken);
+        if (!token.isRefreshToken()) {
+            throw new RuntimeException("Invalid token type");
+        }
+        if (token.getId() == null) {
+            // Issued before rotation existed; cannot be tracked, so it has to be replaced by a login
+            throw new RuntimeException("Refresh token is no longer supported, please log in again");
+        }
+        return token;
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Rotation {
+        private User user;
+        private String refreshToken;
+    }
+
+    /**
+     * A refresh token was presented after it had already been used.
+     */
+    public static class TokenReuseException extends RuntimeException {
+        public TokenReuseException() {
+            super("Refresh token has already been used");
+        }
+    }
+}
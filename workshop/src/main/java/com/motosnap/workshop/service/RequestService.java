@@ -27,6 +27,12 @@ public class RequestService {
     @Autowired
     private InventoryRepository inventoryRepository;
     
+    @Autowired
+    private StockService stockService;
+    
+    @Autowired
+    private StockAvailability stockAvailability;
+    
     /**
      * Create a new parts request by a mechanic for a specific booking
      */
@@ -41,13 +47,17 @@ public class RequestService {
         User mechanic = userRepository.findByEmail(mechanicUsername)
             .orElseThrow(() -> new RuntimeException("Mechanic not found"));
         
-        Inventory part = inventoryRepository.findById(dto.getPartId())
-            .orElseThrow(() -> new RuntimeException("Part not found"));
-        
-        // Check inventory availability
-        if (part.getQty() < dto.getQuantity()) {
-            throw new RuntimeException("Insufficient stock available. Available: " + part.getQty() + ", Requested: " + dto.getQuantity());
+        // Check inventory availability from the in-memory stock map
+        int available = stockAvailability.isReady()
+            ? stockAvailability.getAvailable(dto.getPartId())
+            : inventoryRepository.findByIdAndNotDeleted(dto.getPartId()).map(Inventory::getAvailableQty).orElse(StockAvailability.UNKNOWN);
+        if (available == StockAvailability.UNKNOWN) {
+            throw new RuntimeException("Part not found");
+        }
+        if (available < dto.getQuantity()) {
+            throw new RuntimeException("Insufficient stock available. Available: " + available + ", Requested: " + dto.getQuantity());
         }
+        Inventory part = inventoryRepository.getReferenceById(dto.getPartId());
         
         // Check for duplicate requests (same part, same booking, pending)
         List<Request> existingRequests = requestRepository.findByBookingOrderByRequestedAtAsc(booking);
@@ -73,6 +83,7 @@ public class RequestService {
     /**
      * Get all requests for a specific booking
      */
+    @Transactional(readOnly = true)
     public List<RequestResponseDTO> getRequestsForBooking(Long bookingId) {
         Booking booking = bookingRepository.findById(bookingId)
             .orElseThrow(() -> new RuntimeException("Booking not found"));
@@ -86,6 +97,7 @@ public class RequestService {
     /**
      * Get all requests made by a specific mechanic
      */
+    @Transactional(readOnly = true)
     public List<RequestResponseDTO> getMechanicRequests(String mechanicUsername) {
         User mechanic = userRepository.findByEmail(mechanicUsername)
             .orElseThrow(() -> new RuntimeException("Mechanic not found"));
@@ -121,6 +133,7 @@ public class RequestService {
     /**
      * Check if a mechanic can request parts (for frontend validation)
      */
+    @Transactional(readOnly = true)
     public boolean canMechanicRequestParts(Long bookingId, String mechanicUsername) {
         try {
             validateMechanicCanRequestParts(bookingId, mechanicUsername);
@@ -147,7 +160,7 @@ public class RequestService {
         dto.setPartName(request.getPart().getPartName());
         dto.setPartCategory(request.getPart().getCategory());
         dto.setPartPrice(request.getPart().getUnitPrice().doubleValue());
-        dto.setAvailableStock(request.getPart().getQty());
+        dto.setAvailableStock(request.getPart().getAvailableQty());
         
         // Mechanic information
         dto.setMechanicId(request.getMechanic().getId());
@@ -167,6 +180,7 @@ public class RequestService {
     /**
      * Get all pending requests (for admin interface)
      */
+    @Transactional(readOnly = true)
     public List<RequestResponseDTO> getPendingRequests() {
         List<Request> requests = requestRepository.findByStatusOrderByRequestedAtDesc(RequestStatus.PENDING);
         return requests.stream()
@@ -185,14 +199,8 @@ public class RequestService {
             throw new RuntimeException("Only pending requests can be approved");
         }
         
-        // Check if inventory is still available
-        if (request.getPart().getQty() < request.getQty()) {
-            throw new RuntimeException("Insufficient stock available for approval");
-        }
-        
-        // Deduct from inventory
-        request.getPart().deductStock(request.getQty());
-        inventoryRepository.save(request.getPart());
+        // Deduct from inventory; fails if the stock is no longer available
+        request.setPart(stockService.deductStock(request.getPart().getId(), request.getQty()));
         
         // Update request status
         request.setStatus(RequestStatus.APPROVED);
@@ -0,0 +1,131 @@
+package com.motosnap.workshop.service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory set of revoked token ids (jti) that have not expired yet.
+ *
+ * Each id remembers whether it was revoked by rotation (so presenting it again
+ * means a copy leaked) or by logout/revoke-all.
+ *
+ * Lookups go through a Bloom filter first. A token that was never revoked (the
+ * normal case) is answered by a handful of bit reads. Only filter hits go on to
+ * the exact map, which also weeds out false positives. Bits are set with CAS,
+ * so neither structure takes a lock.
+ *
+ * A Bloom filter cannot forget, so prune() drops expired ids and rebuilds the
+ * filter from what is left.
+ */
+class RevokedTokenSet {
+
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final Map<String, Entry> exact = new ConcurrentHashMap<>();
+    private volatile Bloom bloom;
+
+    RevokedTokenSet(int expectedEntries, double falsePositiveRate) {
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.bloom = new Bloom(expectedEntries, falsePositiveRate);
+    }
+
+    void add(String jti, Instant expiresAt, boolean rotated) {
+        exact.put(jti, new Entry(expiresAt, rotated));
+        bloom.add(jti);
+    }
+
+    boolean contains(String jti) {
+        return bloom.mightContain(jti) && exact.containsKey(jti);
+    }
+
+    boolean isRotated(String jti) {
+        Entry entry = exact.get(jti);
+        return entry != null && entry.rotated;
+    }
+
+    int size() {
+        return exact.size();
+    }
+
+    /**
+     * Drop ids whose tokens have expired and rebuild the filter, sized for the
+     * larger of the configured capacity and what is still held.
+     */
+    void prune(Instant now) {
+        exact.values().removeIf(entry -> entry.expiresAt.isBefore(now));
+        Bloom rebuilt = new Bloom(Math.max(expectedEntries, exact.size() * 2), falsePositiveRate);
+        exact.keySet().forEach(rebuilt::add);
+        bloom = rebuilt;
+        // Ids added while rebuilding may have gone only into the old filter
+        exact.keySet().forEach(rebuilt::add);
+    }
+
+    private static final class Entry {
+        private final Instant expiresAt;
+        private final boolean rotated;
+
+        Entry(Instant expiresAt, boolean rotated) {
+            this.expiresAt = expiresAt;
+            this.rotated = rotated;
+        }
+    }
+
+    private static final class Bloom {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        Bloom(int expectedEntries, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) Math.max(1, (bits + 63) / 64));
+            this.bitCount = words.length() * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * Math.log(2)));
+        }
+
+        void add(String key) {
+            long h1 = hash(key);
+            long h2 = mix(h1);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                while (((current = words.get(word)) & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                    // retry until the bit is set
+                }
+            }
+        }
+
+        boolean mightContain(String key) {
+            long h1 = hash(key);
+            long h2 = mix(h1);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 64-bit FNV-1a over the characters
+        private static long hash(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                hash ^= key.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        // Second, independent-enough hash for double hashing (splitmix64 finaliser), forced odd
+        private static long mix(long h) {
+            h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+            h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return (h ^ (h >>> 33)) | 1L;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.motosnap.workshop.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ids for rows written with plain SQL, taken from the generator Hibernate uses for
+ * the entity. They come from the same pooled optimizer as entities saved through
+ * JPA, so the two never collide, and only one id in allocationSize costs a round trip.
+ */
+@Component
+public class SequenceIds {
+
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public SequenceIds(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public long next(Class<?> entityClass) {
+        return next(entityClass, 1).get(0);
+    }
+
+    public List<Long> next(Class<?> entityClass, int count) {
+        return transactionTemplate.execute(status -> {
+            SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+            IdentifierGenerator generator = (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(entityClass).getGenerator();
+            List<Long> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ids.add(((Number) generator.generate(session, null)).longValue());
+            }
+            return ids;
+        });
+    }
+
+    /**
+     * SQL expression that maps each key to its id (CASE column WHEN ? THEN ? ... END),
+     * for giving the rows of an INSERT ... SELECT their ids. The key / id pairs are
+     * appended to args.
+     */
+    public static String idByKey(String column, List<Long> keys, List<Long> ids, List<Object> args) {
+        StringBuilder sql = new StringBuilder("CASE ").append(column);
+        for (int i = 0; i < keys.size(); i++) {
+            sql.append(" WHEN ? THEN ?");
+            args.add(keys.get(i));
+            args.add(ids.get(i));
+        }
+        return sql.append(" END").toString();
+    }
+}
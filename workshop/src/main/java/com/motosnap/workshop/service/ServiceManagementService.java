@@ -1,9 +1,12 @@
 package com.motosnap.workshop.service;
 
+import com.motosnap.workshop.config.CacheConfig;
+import com.motosnap.workshop.dto.ServiceDTO;
 import com.motosnap.workshop.dto.ServiceRequest;
 import com.motosnap.workshop.entity.Service;
 import com.motosnap.workshop.repository.ServiceRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,6 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @org.springframework.stereotype.Service
 @RequiredArgsConstructor
@@ -18,23 +22,41 @@ import java.util.Optional;
 public class ServiceManagementService {
     
     private final ServiceRepository serviceRepository;
+    private final CatalogCacheEvictor catalogCacheEvictor;
     
+    @Transactional(readOnly = true)
     public List<Service> getAllServices() {
         return serviceRepository.findAll();
     }
     
+    /**
+     * Service catalog for the public services page, already mapped to DTOs.
+     * Served from the catalog cache with single-flight loading on a miss.
+     */
+    @Cacheable(cacheNames = CacheConfig.PUBLIC_SERVICES, key = "'all'", sync = true)
+    @Transactional(readOnly = true)
+    public List<ServiceDTO> getPublicServiceCatalog() {
+        return serviceRepository.findAll().stream()
+            .map(ServiceDTO::new)
+            .collect(Collectors.collectingAndThen(Collectors.toList(), List::copyOf));
+    }
+    
+    @Transactional(readOnly = true)
     public Page<Service> getAllServices(Pageable pageable) {
         return serviceRepository.findAll(pageable);
     }
     
+    @Transactional(readOnly = true)
     public Optional<Service> getServiceById(Long id) {
         return serviceRepository.findById(id);
     }
     
+    @Transactional(readOnly = true)
     public List<Service> getServicesByCategory(String category) {
         return serviceRepository.findByCategoryIgnoreCase(category);
     }
     
+    @Transactional(readOnly = true)
     public List<Service> searchServices(String searchTerm) {
         return serviceRepository.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(
             searchTerm, searchTerm
@@ -54,7 +76,9 @@ public class ServiceManagementService {
         service.setBasePrice(BigDecimal.valueOf(request.getBasePrice()));
         service.setEstimatedDurationMinutes(request.getEstimatedDurationMinutes());
         
-        return serviceRepository.save(service);
+        Service saved = serviceRepository.save(service);
+        catalogCacheEvictor.evictServicesAfterCommit();
+        return saved;
     }
     
     public Service updateService(Long id, ServiceRequest request) {
@@ -73,7 +97,9 @@ public class ServiceManagementService {
         service.setBasePrice(BigDecimal.valueOf(request.getBasePrice()));
         service.setEstimatedDurationMinutes(request.getEstimatedDurationMinutes());
         
-        return serviceRepository.save(service);
+        Service saved = serviceRepository.save(service);
+        catalogCacheEvictor.evictServicesAfterCommit();
+        return saved;
     }
     
     public void deleteService(Long id) {
@@ -81,12 +107,15 @@ public class ServiceManagementService {
             throw new RuntimeException("Service not found with id: " + id);
         }
         serviceRepository.deleteById(id);
+        catalogCacheEvictor.evictServicesAfterCommit();
     }
     
+    @Transactional(readOnly = true)
     public List<String> getAllCategories() {
         return serviceRepository.findDistinctCategories();
     }
     
+    @Transactional(readOnly = true)
     public List<Service> getServicesByPriceRange(Double minPrice, Double maxPrice) {
         return serviceRepository.findByBasePriceBetween(
             BigDecimal.valueOf(minPrice), 
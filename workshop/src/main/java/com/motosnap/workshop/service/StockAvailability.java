@@ -0,0 +1,302 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.repository.InventoryRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Available quantity (on hand minus active reservations) of every non-deleted
+ * part, kept in memory so stock checks and stock badges do not load Inventory entities.
+ *
+ * The map is seeded from the database at startup and every stock-changing path
+ * updates it once its transaction commits: StockService applies the change in
+ * available stock as a delta, and new, restored and deleted parts have their row
+ * read again, so nothing writes a quantity taken from an entity loaded earlier in
+ * the transaction. The map is also rebuilt every
+ * stock.availability.rebuild-interval-ms; changes whose callbacks run while the
+ * rebuild is reading are replayed onto the new map. Only a change that committed
+ * just before the read but ran its callback just after can be counted twice, and
+ * the next rebuild corrects it. It is used for checks that can be
+ * answered early; the conditional UPDATE in StockService is still what
+ * guarantees a part cannot be oversold.
+ *
+ * Ids and quantities sit in parallel long[] / int[] arrays (open addressing,
+ * linear probing), so lookups do not box. Reads are optimistic: they take no
+ * lock and retry under the read lock only if a write ran at the same time.
+ */
+@Component
+public class StockAvailability {
+
+    /** Returned when the part is unknown (never existed or deleted). */
+    public static final int UNKNOWN = -1;
+
+    private final InventoryRepository inventoryRepository;
+    private final StampedLock lock = new StampedLock();
+    private Table table = new Table(16);
+    // Changes made while a rebuild reads the database, replayed onto its table; null otherwise
+    private List<Consumer<Table>> journal;
+
+    private volatile boolean ready;
+
+    public StockAvailability(InventoryRepository inventoryRepository) {
+        this.inventoryRepository = inventoryRepository;
+    }
+
+    @PostConstruct
+    @Scheduled(initialDelayString = "${stock.availability.rebuild-interval-ms:3600000}",
+               fixedDelayString = "${stock.availability.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        long stamp = lock.writeLock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        List<Object[]> levels;
+        try {
+            levels = inventoryRepository.findStockLevels();
+        } catch (RuntimeException e) {
+            stamp = lock.writeLock();
+            try {
+                journal = null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            throw e;
+        }
+        Table seeded = new Table(Table.capacityFor(levels.size()));
+        for (Object[] level : levels) {
+            seeded.put(((Number) level[0]).longValue(), level[1] != null ? ((Number) level[1]).intValue() : 0);
+        }
+        stamp = lock.writeLock();
+        try {
+            for (Consumer<Table> change : journal) {
+                if (seeded.needsResize()) {
+                    seeded = seeded.resized();
+                }
+                change.accept(seeded);
+            }
+            journal = null;
+            table = seeded;
+            ready = true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        System.out.println("DEBUG: Stock availability loaded for " + levels.size() + " parts");
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Quantity available for a part, or UNKNOWN when the part does not exist or is deleted.
+     */
+    public int getAvailable(long inventoryId) {
+        long stamp = lock.tryOptimisticRead();
+        int qty = table.get(inventoryId);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                qty = table.get(inventoryId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return qty;
+    }
+
+    /**
+     * Available quantities for the given parts, in request order. Unknown parts are left out.
+     */
+    public Map<Long, Integer> getAvailable(Collection<Long> inventoryIds) {
+        Map<Long, Integer> available = new LinkedHashMap<>();
+        for (Long id : inventoryIds) {
+            int qty = getAvailable(id);
+            if (qty != UNKNOWN) {
+                available.put(id, qty);
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Available quantities of all parts.
+     */
+    public Map<Long, Integer> getAll() {
+        long stamp = lock.readLock();
+        try {
+            return table.toMap();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Read a part's available stock from the database once the transaction commits,
+     * for parts that were created or restored. Deleted parts are dropped.
+     */
+    public void reloadAfterCommit(long inventoryId) {
+        TransactionHooks.afterCommit(() -> {
+            Integer qty = inventoryRepository.findStockLevel(inventoryId).orElse(null);
+            apply(current -> {
+                if (qty != null) {
+                    current.put(inventoryId, qty);
+                } else {
+                    current.remove(inventoryId);
+                }
+            });
+        });
+    }
+
+    /**
+     * Apply a stock delta once the transaction commits. Deltas commute, so the
+     * order of concurrent commits does not matter.
+     */
+    public void adjustAfterCommit(long inventoryId, int delta) {
+        TransactionHooks.afterCommit(() -> apply(current -> current.adjust(inventoryId, delta)));
+    }
+
+    public void removeAfterCommit(long inventoryId) {
+        TransactionHooks.afterCommit(() -> apply(current -> current.remove(inventoryId)));
+    }
+
+    private void apply(Consumer<Table> change) {
+        long stamp = lock.writeLock();
+        try {
+            if (table.needsResize()) {
+                table = table.resized();
+            }
+            change.accept(table);
+            if (journal != null) {
+                journal.add(change);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Open-addressing long to int table. Inventory ids start at 1, so 0 marks a free slot.
+     * Not thread-safe on its own; readers may see it mid-update, which the stamp check catches.
+     * Package-private so StockAvailabilityTest can check it against a HashMap.
+     */
+    static final class Table {
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+        private int size;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        // Power of two that keeps the load factor under 0.5
+        static int capacityFor(int entries) {
+            return Math.max(16, Integer.highestOneBit(Math.max(1, entries) * 4 - 1));
+        }
+
+        int get(long key) {
+            int slot = slot(key);
+            for (int probes = 0; probes <= mask; probes++) {
+                long current = keys[slot];
+                if (current == key) {
+                    return values[slot];
+                }
+                if (current == 0) {
+                    return UNKNOWN;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return UNKNOWN;
+        }
+
+        void put(long key, int value) {
+            int slot = slot(key);
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = value;
+        }
+
+        void adjust(long key, int delta) {
+            int slot = slot(key);
+            while (keys[slot] != 0) {
+                if (keys[slot] == key) {
+                    values[slot] += delta;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        void remove(long key) {
+            int slot = slot(key);
+            while (keys[slot] != key) {
+                if (keys[slot] == 0) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            // Shift later entries of the probe run back so lookups never stop early
+            int free = slot;
+            int next = (free + 1) & mask;
+            while (keys[next] != 0) {
+                int home = slot(keys[next]);
+                if (((next - home) & mask) >= ((next - free) & mask)) {
+                    keys[free] = keys[next];
+                    values[free] = values[next];
+                    free = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[free] = 0;
+            values[free] = 0;
+            size--;
+        }
+
+        boolean needsResize() {
+            return (size + 1) * 2 > keys.length;
+        }
+
+        Table resized() {
+            Table bigger = new Table(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) {
+                    bigger.put(keys[i], values[i]);
+                }
+            }
+            return bigger;
+        }
+
+        Map<Long, Integer> toMap() {
+            Map<Long, Integer> map = new LinkedHashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) {
+                    map.put(keys[i], values[i]);
+                }
+            }
+            return map;
+        }
+
+        private int slot(long key) {
+            // Fibonacci hashing spreads sequential ids across the table
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.entity.Inventory;
+import com.motosnap.workshop.entity.Order;
+import com.motosnap.workshop.entity.OrderItem;
+import com.motosnap.workshop.entity.ReservationStatus;
+import com.motosnap.workshop.entity.StockReservation;
+import com.motosnap.workshop.repository.StockReservationRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time-limited stock holds for orders.
+ *
+ * Checkout reserves the ordered stock instead of taking it off hand. The holds
+ * expire after stock.reservation.hold-minutes unless the customer submits a
+ * payment, after which they last until the admin decides: approval commits them
+ * (the stock leaves the shelf), rejection releases them. An order whose holds
+ * were released reserves again when a payment is submitted for it.
+ *
+ * Expiry deadlines sit in a hashed timing wheel that is advanced every tick;
+ * a due order has its expired holds released in its own transaction. Deadlines
+ * are also reloaded from the database periodically, so holds created on another
+ * node, or before a restart, still expire. Every transition locks the order's
+ * hold rows first, so approval, rejection and expiry cannot race each other.
+ */
+@Service
+public class StockReservationService {
+
+    private static final int WHEEL_BUCKETS = 512;
+
+    private final StockReservationRepository reservationRepository;
+    private final StockService stockService;
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIds sequenceIds;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration holdDuration;
+    private final long rescanIntervalMillis;
+    private final TimingWheel wheel;
+
+    public StockReservationService(StockReservationRepository reservationRepository,
+                                   StockService stockService,
+                                   JdbcTemplate jdbcTemplate,
+                                   SequenceIds sequenceIds,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${stock.reservation.hold-minutes:1440}") long holdMinutes,
+                                   @Value("${stock.reservation.tick-ms:1000}") long tickMillis,
+                                   @Value("${stock.reservation.rescan-interval-ms:300000}") long rescanIntervalMillis) {
+        this.reservationRepository = reservationRepository;
+        this.stockService = stockService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequenceIds = sequenceIds;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.holdDuration = Duration.ofMinutes(holdMinutes);
+        this.rescanIntervalMillis = rescanIntervalMillis;
+        this.wheel = new TimingWheel(WHEEL_BUCKETS, tickMillis, System.currentTimeMillis());
+    }
+
+    /**
+     * Reserve the stock for a new order placed from a cart: one UPDATE reserves every
+     * part and one INSERT ... SELECT creates the holds. Fails without reserving anything
+     * when a part is short. The caller must hold the cart's lock.
+     */
+    @Transactional
+    public void reserveCartForOrder(Order order, Long cartId, Map<Long, Integer> quantitiesByInventoryId) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(holdDuration);
+        stockService.reserveCartStock(cartId, quantitiesByInventoryId);
+
+        // One hold per part, summed from the cart's lines
+        List<Long> partIds = new ArrayList<>(quantitiesByInventoryId.keySet());
+        List<Object> args = new ArrayList<>();
+        String id = SequenceIds.idByKey("ci.inventory_id", partIds,
+            sequenceIds.next(StockReservation.class, partIds.size()), args);
+        args.addAll(List.of(order.getId(), ReservationStatus.HELD.name(), expiresAt, now, now, cartId));
+        jdbcTemplate.update("INSERT INTO stock_reservations (id, order_id, part_id, qty, status, expires_at, created_at, updated_at) " +
+            "SELECT " + id + ", ?, ci.inventory_id, SUM(ci.quantity), ?, ?, ?, ? FROM cart_items ci " +
+            "WHERE ci.cart_id = ? GROUP BY ci.inventory_id", args.toArray());
+
+        Long orderId = order.getId();
+        TransactionHooks.afterCommit(() -> wheel.schedule(orderId, toEpochMillis(expiresAt)));
+    }
+
+    /**
+     * Keep an order's stock while its payment is reviewed. Holds stop expiring; if
+     * they were already released (expired or rejected payment), the stock is
+     * reserved again, failing when it is no longer available.
+     */
+    @Transactional
+    public void holdForReview(Order order) {
+        List<StockReservation> held = reservationRepository.findHeldByOrderIdForUpdate(order.getId());
+        if (!held.isEmpty()) {
+            for (StockReservation reservation : held) {
+                reservation.setExpiresAt(null);
+            }
+            return;
+        }
+        if (!reservationRepository.existsByOrderId(order.getId())) {
+            // Placed before reservations existed: its stock was deducted at checkout
+            return;
+        }
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            quantities.merge(item.getPart().getId(), item.getQty(), Integer::sum);
+        }
+        hold(order, quantities, null);
+        System.out.println("DEBUG: Stock reserved again for order " + order.getId());
+    }
+
+    /**
+     * The order was approved: its reserved stock leaves the shelf.
+     */
+    @Transactional
+    public void commitForOrder(Order order) {
+        List<StockReservation> held = reservationRepository.findHeldByOrderIdForUpdate(order.getId());
+        if (!held.isEmpty()) {
+            stockService.commitReservedStock(quantities(held));
+            finish(held, ReservationStatus.COMMITTED);
+        }
+    }
+
+    /**
+     * The order was rejected: its reserved stock becomes available again.
+     */
+    @Transactional
+    public void releaseForOrder(Order order) {
+        List<StockReservation> held = reservationRepository.findHeldByOrderIdForUpdate(order.getId());
+        if (!held.isEmpty()) {
+            stockService.releaseReservedStock(quantities(held));
+            finish(held, ReservationStatus.RELEASED);
+        }
+    }
+
+    /**
+     * Advance the expiry wheel and release the holds that are due.
+     */
+    @Scheduled(fixedDelayString = "${stock.reservation.tick-ms:1000}")
+    public void releaseExpiredHolds() {
+        wheel.advance(System.currentTimeMillis(), this::expire);
+    }
+
+    /**
+     * Put the deadlines of holds expiring before the next rescan on the wheel.
+     * Orders already on it may be added twice; releasing them a second time finds nothing to do.
+     */
+    @PostConstruct
+    @Scheduled(initialDelayString = "${stock.reservation.rescan-interval-ms:300000}",
+               fixedDelayString = "${stock.reservation.rescan-interval-ms:300000}")
+    public void loadExpiringHolds() {
+        LocalDateTime horizon = LocalDateTime.now().plusNanos(rescanIntervalMillis * 1_000_000L);
+        List<Object[]> orders = reservationRepository.findExpiringOrders(horizon);
+        for (Object[] row : orders) {
+            wheel.schedule((Long) row[0], toEpochMillis((LocalDateTime) row[1]));
+        }
+        System.out.println("DEBUG: Scheduled stock hold expiry for " + orders.size() + " orders");
+    }
+
+    private void expire(long orderId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<StockReservation> expired =
+                    reservationRepository.findExpiredByOrderIdForUpdate(orderId, LocalDateTime.now());
+                if (!expired.isEmpty()) {
+                    stockService.releaseReservedStock(quantities(expired));
+                    finish(expired, ReservationStatus.RELEASED);
+                    System.out.println("DEBUG: Released expired stock holds for order " + orderId);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Try again on a later tick
+            System.err.println("Failed to release stock holds for order " + orderId + ": " + e.getMessage());
+            wheel.schedule(orderId, System.currentTimeMillis() + 60_000L);
+        }
+    }
+
+    private void hold(Order order, Map<Long, Integer> quantitiesByInventoryId, LocalDateTime expiresAt) {
+        Map<Long, Inventory> parts = stockService.reserveStock(quantitiesByInventoryId);
+        List<StockReservation> reservations = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : quantitiesByInventoryId.entrySet()) {
+            reservations.add(new StockReservation(order, parts.get(line.getKey()),
+                line.getValue(), expiresAt));
+        }
+        reservationRepository.saveAll(reservations);
+    }
+
+    private static Map<Long, Integer> quantities(List<StockReservation> reservations) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (StockReservation reservation : reservations) {
+            quantities.merge(reservation.getPart().getId(), reservation.getQty(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private static void finish(List<StockReservation> reservations, ReservationStatus status) {
+        for (StockReservation reservation : reservations) {
+            reservation.setStatus(status);
+            reservation.setExpiresAt(null);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
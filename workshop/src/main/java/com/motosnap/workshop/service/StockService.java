@@ -0,0 +1,298 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.entity.Inventory;
+import com.motosnap.workshop.repository.InventoryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Single path for stock changes caused by orders, parts requests and admin stock edits.
+ *
+ * Stock is changed with conditional UPDATEs instead of read-modify-write on the
+ * entity, so concurrent checkouts cannot oversell a part and no row is locked
+ * before the update itself. All lines go out as one JDBC batch. Inventory
+ * entities are never set dirty; copies already loaded in the session are
+ * refreshed afterwards, so a later flush cannot write an old quantity back and
+ * entities that reference them (order items, requests) stay usable.
+ *
+ * A part's available stock is qty - reserved_qty. Parts requests take stock off
+ * hand directly; orders first reserve it (reserved_qty) and take it off hand when
+ * the order is approved, or give it back when the reservation is released.
+ */
+@Service
+@Transactional
+public class StockService {
+
+    /**
+     * The stock changes, each a conditional UPDATE taking (quantity, [quantity,] now, id, quantity
+     * [, quantity]), with the sign of its effect on available stock.
+     */
+    private enum Change {
+        DEDUCT("UPDATE inventory SET qty = qty - ?, updated_at = ? " +
+               "WHERE id = ? AND deleted = false AND qty - reserved_qty >= ?", -1, false),
+        RESERVE("UPDATE inventory SET reserved_qty = reserved_qty + ?, updated_at = ? " +
+                "WHERE id = ? AND deleted = false AND qty - reserved_qty >= ?", -1, false),
+        RELEASE("UPDATE inventory SET reserved_qty = reserved_qty - ?, updated_at = ? " +
+                "WHERE id = ? AND reserved_qty >= ?", 1, false),
+        COMMIT("UPDATE inventory SET qty = qty - ?, reserved_qty = reserved_qty - ?, updated_at = ? " +
+               "WHERE id = ? AND reserved_qty >= ? AND qty >= ?", 0, true);
+
+        private final String sql;
+        private final int availabilitySign;
+        private final boolean quantityTwice;
+
+        Change(String sql, int availabilitySign, boolean quantityTwice) {
+            this.sql = sql;
+            this.availabilitySign = availabilitySign;
+            this.quantityTwice = quantityTwice;
+        }
+    }
+
+    /**
+     * RESERVE for all lines of a cart at once, taking each part's quantity from cart_items.
+     * Takes (cartId, now, cartId) followed by the inventory ids.
+     */
+    private static final String RESERVE_CART =
+        "UPDATE inventory SET reserved_qty = reserved_qty + " +
+        "(SELECT SUM(ci.quantity) FROM cart_items ci WHERE ci.cart_id = ? AND ci.inventory_id = inventory.id), updated_at = ? " +
+        "WHERE id IN (%s) AND deleted = false AND qty - reserved_qty >= " +
+        "(SELECT SUM(ci.quantity) FROM cart_items ci WHERE ci.cart_id = ? AND ci.inventory_id = inventory.id)";
+
+    /**
+     * Admin stock edit: sets the quantity on hand, taking (quantity, now, id, quantity).
+     * Stock reserved for orders cannot be taken away.
+     */
+    private static final String SET_QTY =
+        "UPDATE inventory SET qty = ?, updated_at = ? WHERE id = ? AND deleted = false AND reserved_qty <= ?";
+
+    private static final String LOCK_QTY = "SELECT qty FROM inventory WHERE id = ? AND deleted = false FOR UPDATE";
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StockAvailability stockAvailability;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Deduct stock for one part, failing with the current availability when
+     * there is not enough left.
+     *
+     * @return the part with its new quantity
+     */
+    public Inventory deductStock(Long inventoryId, int quantity) {
+        return deductStock(Map.of(inventoryId, quantity)).get(inventoryId);
+    }
+
+    /**
+     * Deduct stock for several parts. Rows are updated in id order so concurrent
+     * checkouts sharing parts take their row locks in the same order. If any part
+     * is short the exception rolls back the deductions already made.
+     *
+     * @return the parts with their new quantities, by id
+     */
+    public Map<Long, Inventory> deductStock(Map<Long, Integer> quantitiesByInventoryId) {
+        return update(Change.DEDUCT, quantitiesByInventoryId);
+    }
+
+    /**
+     * Reserve stock for several parts: it stays on hand but is no longer available.
+     * Fails like deductStock when a part is short.
+     */
+    public Map<Long, Inventory> reserveStock(Map<Long, Integer> quantitiesByInventoryId) {
+        return update(Change.RESERVE, quantitiesByInventoryId);
+    }
+
+    /**
+     * Reserve the stock for every line of a cart with a single UPDATE that reads the
+     * quantities from cart_items, so its cost does not grow with the cart. The caller
+     * must hold the cart's lock, and quantitiesByInventoryId must be what the cart
+     * holds. Fails like reserveStock when a part is short.
+     */
+    public void reserveCartStock(Long cartId, Map<Long, Integer> quantitiesByInventoryId) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantitiesByInventoryId).entrySet());
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        entityManager.flush();
+        List<Object> args = new ArrayList<>(lines.size() + 3);
+        args.add(cartId);
+        args.add(LocalDateTime.now());
+        List<Long> ids = new ArrayList<>(lines.size());
+        for (Map.Entry<Long, Integer> line : lines) {
+            ids.add(line.getKey());
+            args.add(line.getKey());
+        }
+        args.add(cartId);
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        int updated = jdbcTemplate.update(String.format(RESERVE_CART, placeholders), args.toArray());
+        refreshLoaded(ids);
+
+        if (updated != lines.size()) {
+            // Rows that were not short have been reserved; the exception rolls them back
+            Map<Long, Inventory> parts = new HashMap<>();
+            for (Inventory part : inventoryRepository.findAllById(ids)) {
+                parts.put(part.getId(), part);
+            }
+            for (Map.Entry<Long, Integer> line : lines) {
+                Inventory part = parts.get(line.getKey());
+                if (part == null || part.getDeleted()) {
+                    throw new RuntimeException("Inventory item not found with id: " + line.getKey());
+                }
+                // This transaction's own reservations are not in the map yet
+                int available = stockAvailability.isReady()
+                    ? stockAvailability.getAvailable(line.getKey())
+                    : part.getAvailableQty();
+                if (available < line.getValue()) {
+                    throw new RuntimeException("Insufficient stock for item: " + part.getPartName() +
+                        ". Available: " + available + ", Required: " + line.getValue());
+                }
+            }
+            throw new RuntimeException("Insufficient stock for some items in the cart");
+        }
+        afterChange(Change.RESERVE, lines);
+    }
+
+    /**
+     * Make reserved stock available again.
+     */
+    public void releaseReservedStock(Map<Long, Integer> quantitiesByInventoryId) {
+        update(Change.RELEASE, quantitiesByInventoryId);
+    }
+
+    /**
+     * Take reserved stock off hand. Available stock does not change.
+     */
+    public void commitReservedStock(Map<Long, Integer> quantitiesByInventoryId) {
+        update(Change.COMMIT, quantitiesByInventoryId);
+    }
+
+    /**
+     * Set the quantity on hand of a part, failing when it would drop below the stock
+     * reserved for orders. The row is locked first, so the change in available stock
+     * passed on to the in-memory views is exact.
+     *
+     * @return the part with its new quantity
+     */
+    public Inventory setStock(Long inventoryId, int quantity) {
+        if (quantity < 0) {
+            throw new RuntimeException("Quantity cannot be negative");
+        }
+
+        entityManager.flush();
+        List<Integer> current = jdbcTemplate.queryForList(LOCK_QTY, Integer.class, inventoryId);
+        if (current.isEmpty()) {
+            throw new RuntimeException("Inventory item not found with id: " + inventoryId);
+        }
+        int updated = jdbcTemplate.update(SET_QTY, quantity, LocalDateTime.now(), inventoryId, quantity);
+        refreshLoaded(List.of(inventoryId));
+        Inventory part = inventoryRepository.findById(inventoryId)
+            .orElseThrow(() -> new RuntimeException("Inventory item not found with id: " + inventoryId));
+        if (updated == 0) {
+            throw new RuntimeException("Quantity cannot be lower than the " + part.getReservedQty() +
+                " units reserved for pending orders");
+        }
+
+        int delta = quantity - current.get(0);
+        if (delta != 0) {
+            stockAvailability.adjustAfterCommit(inventoryId, delta);
+        }
+        return part;
+    }
+
+    private Map<Long, Inventory> update(Change change, Map<Long, Integer> quantitiesByInventoryId) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantitiesByInventoryId).entrySet());
+        for (Map.Entry<Long, Integer> line : lines) {
+            if (line.getValue() == null || line.getValue() <= 0) {
+                throw new RuntimeException("Quantity must be positive for inventory item: " + line.getKey());
+            }
+        }
+        if (lines.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        // The batch goes straight to JDBC, so pending entity changes have to be written first
+        entityManager.flush();
+        LocalDateTime now = LocalDateTime.now();
+        int[][] updateCounts = jdbcTemplate.batchUpdate(change.sql, lines, lines.size(), (ps, line) -> {
+            int index = 1;
+            ps.setInt(index++, line.getValue());
+            if (change.quantityTwice) {
+                ps.setInt(index++, line.getValue());
+            }
+            ps.setObject(index++, now);
+            ps.setLong(index++, line.getKey());
+            ps.setInt(index++, line.getValue());
+            if (change.quantityTwice) {
+                ps.setInt(index, line.getValue());
+            }
+        });
+
+        List<Long> ids = new ArrayList<>(lines.size());
+        for (Map.Entry<Long, Integer> line : lines) {
+            ids.add(line.getKey());
+        }
+        refreshLoaded(ids);
+        Map<Long, Inventory> parts = new HashMap<>();
+        for (Inventory part : inventoryRepository.findAllById(ids)) {
+            parts.put(part.getId(), part);
+        }
+
+        for (int i = 0; i < lines.size(); i++) {
+            if (updateCounts[0][i] != 0) {
+                continue;
+            }
+            Long inventoryId = lines.get(i).getKey();
+            Inventory part = parts.get(inventoryId);
+            if (part == null || part.getDeleted()) {
+                throw new RuntimeException("Inventory item not found with id: " + inventoryId);
+            }
+            if (change == Change.RELEASE || change == Change.COMMIT) {
+                throw new RuntimeException("Reserved stock out of step for item: " + part.getPartName() +
+                    ". Reserved: " + part.getReservedQty() + ", Required: " + lines.get(i).getValue());
+            }
+            throw new RuntimeException("Insufficient stock for item: " + part.getPartName() +
+                ". Available: " + part.getAvailableQty() + ", Required: " + lines.get(i).getValue());
+        }
+
+        afterChange(change, lines);
+        return parts;
+    }
+
+    // Copies of the parts already in the session would otherwise keep the old quantities
+    private void refreshLoaded(List<Long> ids) {
+        for (Long id : ids) {
+            Inventory loaded = entityManager.getReference(Inventory.class, id);
+            if (Hibernate.isInitialized(loaded)) {
+                entityManager.refresh(loaded);
+            }
+        }
+    }
+
+    private void afterChange(Change change, List<Map.Entry<Long, Integer>> lines) {
+        if (change.availabilitySign != 0) {
+            for (Map.Entry<Long, Integer> line : lines) {
+                stockAvailability.adjustAfterCommit(line.getKey(), change.availabilitySign * line.getValue());
+            }
+        }
+    }
+}
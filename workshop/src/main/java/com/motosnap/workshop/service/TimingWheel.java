@@ -0,0 +1,107 @@
+package com.motosnap.workshop.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongConsumer;
+
+/**
+ * Hashed timing wheel for deadlines of ids (e.g. order ids whose stock holds expire).
+ *
+ * Time is cut into ticks and the wheel has a fixed number of buckets; a deadline
+ * goes into bucket (tick mod buckets) with the number of full turns still to wait.
+ * Advancing one tick only looks at one bucket, so the cost of a sweep depends on
+ * what is due, not on how many deadlines are pending. Deadlines never fire early;
+ * they fire at most one tick late.
+ *
+ * schedule() may be called from any thread. advance() must only be called by one
+ * thread at a time (the sweeper); it is the only code touching the buckets.
+ */
+class TimingWheel {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final List<Timeout>[] buckets;
+    private final int mask;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+
+    // Next tick to process
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(int bucketCount, long tickMillis, long startMillis) {
+        int size = Integer.highestOneBit(Math.max(2, bucketCount) * 2 - 1);
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.buckets = new List[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.mask = size - 1;
+    }
+
+    void schedule(long id, long deadlineMillis) {
+        pending.add(new Timeout(id, deadlineMillis));
+    }
+
+    int pendingCount() {
+        int count = pending.size();
+        synchronized (buckets) {
+            for (List<Timeout> bucket : buckets) {
+                count += bucket.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Process every tick up to nowMillis and hand the ids whose deadline has passed to {@code due}.
+     */
+    void advance(long nowMillis, LongConsumer due) {
+        long lastTick = (nowMillis - startMillis) / tickMillis;
+        List<Timeout> expired = new ArrayList<>();
+        synchronized (buckets) {
+            while (tick <= lastTick) {
+                transferPending();
+                Iterator<Timeout> iterator = buckets[(int) (tick & mask)].iterator();
+                while (iterator.hasNext()) {
+                    Timeout timeout = iterator.next();
+                    if (timeout.rounds <= 0) {
+                        iterator.remove();
+                        expired.add(timeout);
+                    } else {
+                        timeout.rounds--;
+                    }
+                }
+                tick++;
+            }
+        }
+        // Run callbacks outside the lock; they may schedule again
+        for (Timeout timeout : expired) {
+            due.accept(timeout.id);
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            // Round up so a deadline is never reported before it has passed
+            long deadlineTick = Math.max(tick, Math.floorDiv(timeout.deadlineMillis - startMillis + tickMillis - 1, tickMillis));
+            timeout.rounds = (deadlineTick - tick) / buckets.length;
+            buckets[(int) (deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    private static final class Timeout {
+        private final long id;
+        private final long deadlineMillis;
+        private long rounds;
+
+        Timeout(long id, long deadlineMillis) {
+            this.id = id;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.motosnap.workshop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.motosnap.workshop.config.JwtConfig;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Users whose access tokens must no longer be trusted, because their role changed
+ * or the account was removed.
+ *
+ * Access tokens carry the user's id, name and role, and the auth filter builds the
+ * principal from them without reading the user row. When one of those facts changes,
+ * the user is recorded here and every access token issued up to that moment is
+ * rejected, so the client has to refresh (which reads the user again) or log in.
+ * Entries are kept for one access-token lifetime; after that every token they
+ * cover has expired anyway.
+ *
+ * The registry is per node. With several nodes, a change made on one node is only
+ * enforced there until the old access tokens expire.
+ */
+@Service
+public class TokenRevocationRegistry {
+
+    private final Cache<Long, Instant> revokedBefore;
+
+    public TokenRevocationRegistry(JwtConfig jwtConfig) {
+        this.revokedBefore = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(jwtConfig.getAccessTokenExpiration()))
+            .maximumSize(100_000)
+            .build();
+    }
+
+    /**
+     * Reject the access tokens issued to a user so far.
+     */
+    public void revokeUser(Long userId) {
+        // iat has whole-second precision, so tokens issued during the current second are rejected too
+        revokedBefore.put(userId, Instant.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1));
+        System.out.println("DEBUG: Revoked access tokens for user ID: " + userId);
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        if (token.getUserId() == null) {
+            return false;
+        }
+        Instant cutoff = revokedBefore.getIfPresent(token.getUserId());
+        return cutoff != null && (token.getIssuedAt() == null || token.getIssuedAt().isBefore(cutoff));
+    }
+}
@@ -1,10 +1,12 @@
 package com.motosnap.workshop.service;
 
+import com.motosnap.workshop.entity.Role;
 import com.motosnap.workshop.entity.User;
 import com.motosnap.workshop.repository.UserRepository;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -13,7 +15,7 @@ import java.util.Collection;
 import java.util.Collections;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -29,6 +31,38 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         return new CustomUserPrincipal(user);
     }
 
+    /**
+     * Called by Spring Security after a successful login when the stored hash uses a
+     * different BCrypt cost than the current encoder; stores the re-encoded password.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newEncodedPassword) {
+        User user = userRepository.findByEmailAndActive(userDetails.getUsername(), true)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + userDetails.getUsername()));
+        user.setPassword(newEncodedPassword);
+        userRepository.save(user);
+        System.out.println("DEBUG: Rehashed password for user: " + user.getEmail());
+        return new CustomUserPrincipal(user);
+    }
+
+    /**
+     * Build the principal for an access token from its signed claims, without a
+     * database lookup. Returns null when the token lacks the userId or role claims,
+     * so the caller can fall back to loadUserByUsername.
+     */
+    public CustomUserPrincipal loadUserFromToken(VerifiedToken token) {
+        if (token.getUserId() == null || token.getRole() == null) {
+            return null;
+        }
+        User user = new User();
+        user.setId(token.getUserId());
+        user.setEmail(token.getSubject());
+        user.setName(token.getName());
+        user.setRole(Role.valueOf(token.getRole()));
+        user.setActive(true);
+        return new CustomUserPrincipal(user);
+    }
+
     public static class CustomUserPrincipal implements UserDetails {
         private final User user;
 
@@ -73,7 +107,8 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             return user.getActive();
         }
 
-        // Getter to access the full user object
+        // Getter to access the user object. For token-authenticated requests it is
+        // built from the claims and only id, email, name, role and active are set.
         public User getUser() {
             return user;
         }
@@ -4,6 +4,7 @@ import com.motosnap.workshop.dto.UpdateRoleRequest;
 import com.motosnap.workshop.dto.UserResponse;
 import com.motosnap.workshop.entity.Role;
 import com.motosnap.workshop.entity.User;
+import com.motosnap.workshop.repository.RefreshTokenRepository;
 import com.motosnap.workshop.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -21,29 +22,37 @@ import java.util.stream.Collectors;
 public class UserManagementService {
     
     private final UserRepository userRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final BookingAvailability bookingAvailability;
     
+    @Transactional(readOnly = true)
     public List<UserResponse> getAllUsers() {
         return userRepository.findAll().stream()
             .map(this::convertToUserResponse)
             .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
     public Page<UserResponse> getAllUsers(Pageable pageable) {
         return userRepository.findAll(pageable)
             .map(this::convertToUserResponse);
     }
     
+    @Transactional(readOnly = true)
     public Optional<UserResponse> getUserById(Long id) {
         return userRepository.findById(id)
             .map(this::convertToUserResponse);
     }
     
+    @Transactional(readOnly = true)
     public List<UserResponse> getUsersByRole(Role role) {
         return userRepository.findByRole(role).stream()
             .map(this::convertToUserResponse)
             .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
     public List<UserResponse> searchUsers(String searchTerm) {
         return userRepository.findByNameContainingIgnoreCaseOrEmailContainingIgnoreCase(searchTerm, searchTerm)
             .stream()
@@ -57,6 +66,9 @@ public class UserManagementService {
         
         user.setRole(request.getNewRole());
         User updatedUser = userRepository.save(user);
+        // Access tokens still carry the old role claim; revoke them once the new role is committed
+        TransactionHooks.afterCommit(() -> tokenRevocationRegistry.revokeUser(id));
+        bookingAvailability.reloadMechanicsAfterCommit();
         
         return convertToUserResponse(updatedUser);
     }
@@ -73,13 +85,20 @@ public class UserManagementService {
             }
         }
         
+        refreshTokenRepository.deleteByUserId(id);
         userRepository.deleteById(id);
+        TransactionHooks.afterCommit(() -> tokenRevocationRegistry.revokeUser(id));
+        if (user.getRole() == Role.MECHANIC) {
+            bookingAvailability.reloadMechanicsAfterCommit();
+        }
     }
     
+    @Transactional(readOnly = true)
     public long getUserCount() {
         return userRepository.count();
     }
     
+    @Transactional(readOnly = true)
     public long getUserCountByRole(Role role) {
         return userRepository.countByRole(role);
     }
@@ -0,0 +1,94 @@
+package com.motosnap.workshop.service;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+/**
+ * Claims of a JWT whose signature has been checked. Immutable, so one instance
+ * can be shared by every request that presents the same token.
+ */
+public final class VerifiedToken {
+
+    private final String id;
+    private final String subject;
+    private final String type;
+    private final Long userId;
+    private final String role;
+    private final String name;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+
+    private VerifiedToken(String id, String subject, String type, Long userId, String role, String name,
+                          Instant issuedAt, Instant expiresAt) {
+        this.id = id;
+        this.subject = subject;
+        this.type = type;
+        this.userId = userId;
+        this.role = role;
+        this.name = name;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    static VerifiedToken from(Claims claims) {
+        Number userId = claims.get("userId", Number.class);
+        return new VerifiedToken(
+            claims.getId(),
+            claims.getSubject(),
+            claims.get("type", String.class),
+            userId != null ? userId.longValue() : null,
+            claims.get("role", String.class),
+            claims.get("name", String.class),
+            claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+            claims.getExpiration().toInstant()
+        );
+    }
+
+    /**
+     * The jti claim; set on refresh tokens
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired() {
+        return !expiresAt.isAfter(Instant.now());
+    }
+
+    public boolean isAccessToken() {
+        return "access".equals(type);
+    }
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(type);
+    }
+}
@@ -0,0 +1,292 @@
+-- Baseline schema for H2, used by the test and h2 profiles.
+-- Generated from the same entities as mysql/V1__baseline_schema.sql; keep the two in step.
+
+create table bookings (
+    assigned_mechanic_id bigint,
+    completed_at timestamp(6),
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    scheduled_date_time timestamp(6) not null,
+    service_id bigint not null,
+    started_at timestamp(6),
+    updated_at timestamp(6),
+    user_id bigint not null,
+    vehicle_id bigint not null,
+    notes varchar(500),
+    status_notes varchar(500),
+    status enum ('CANCELLED','COMPLETED','CONFIRMED','IN_PROGRESS','PENDING') not null,
+    primary key (id)
+);
+
+create table cart_items (
+    quantity integer not null,
+    unit_price float(53) not null,
+    added_at timestamp(6) not null,
+    cart_id bigint not null,
+    id bigint generated by default as identity,
+    inventory_id bigint not null,
+    updated_at timestamp(6),
+    primary key (id)
+);
+
+create table carts (
+    created_at timestamp(6) not null,
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    user_id bigint not null unique,
+    primary key (id)
+);
+
+create table inventory (
+    active boolean not null,
+    deleted boolean not null,
+    min_stock_level integer not null,
+    qty integer not null,
+    unit_price numeric(10,2) not null,
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    brand varchar(50),
+    category varchar(50),
+    part_code varchar(50),
+    part_name varchar(100) not null unique,
+    image_url varchar(500),
+    description varchar(255),
+    primary key (id)
+);
+
+create table invoice_payments (
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    invoice_id bigint not null unique,
+    updated_at timestamp(6),
+    status enum ('APPROVED','COMPLETED','PAYMENT_SUBMITTED','PENDING','REJECTED') not null,
+    primary key (id)
+);
+
+create table invoice_receipts (
+    amount numeric(10,2),
+    approved_at timestamp(6),
+    approved_by bigint,
+    id bigint generated by default as identity,
+    invoice_payment_id bigint not null unique,
+    updated_at timestamp(6),
+    uploaded_at timestamp(6),
+    file_url varchar(500) not null,
+    notes varchar(1000),
+    admin_notes varchar(255),
+    status enum ('APPROVED','PENDING','REJECTED') not null,
+    primary key (id)
+);
+
+create table invoices (
+    parts_amount numeric(10,2) not null,
+    service_amount numeric(10,2) not null,
+    total_amount numeric(10,2) not null,
+    booking_id bigint not null unique,
+    generated_at timestamp(6),
+    id bigint generated by default as identity,
+    invoice_number varchar(50) not null unique,
+    pdf_url varchar(500),
+    primary key (id)
+);
+
+create table order_items (
+    price numeric(10,2) not null,
+    qty integer not null,
+    id bigint generated by default as identity,
+    order_id bigint not null,
+    part_id bigint not null,
+    primary key (id)
+);
+
+create table orders (
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    user_id bigint not null,
+    status enum ('APPROVED','COMPLETED','PAYMENT_SUBMITTED','PENDING','REJECTED') not null,
+    primary key (id)
+);
+
+create table pricing_rules (
+    price numeric(10,2) not null,
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    service_id bigint not null,
+    updated_at timestamp(6),
+    vehicle_category varchar(50) not null,
+    primary key (id),
+    unique (service_id, vehicle_category)
+);
+
+create table receipts (
+    amount numeric(10,2),
+    approved_at timestamp(6),
+    approved_by bigint,
+    id bigint generated by default as identity,
+    order_id bigint not null unique,
+    updated_at timestamp(6),
+    uploaded_at timestamp(6),
+    file_url varchar(500) not null,
+    notes varchar(1000),
+    admin_notes varchar(255),
+    status enum ('APPROVED','PENDING','REJECTED') not null,
+    primary key (id)
+);
+
+create table requests (
+    qty integer not null,
+    booking_id bigint not null,
+    id bigint generated by default as identity,
+    mechanic_id bigint not null,
+    part_id bigint not null,
+    requested_at timestamp(6),
+    status enum ('APPROVED','PENDING','REJECTED') not null,
+    primary key (id)
+);
+
+create table services (
+    active boolean not null,
+    base_price numeric(10,2) not null,
+    estimated_duration_minutes integer not null,
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    category varchar(50) not null,
+    name varchar(100) not null unique,
+    description varchar(255),
+    primary key (id)
+);
+
+create table users (
+    active boolean not null,
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    phone varchar(20),
+    email varchar(100) not null unique,
+    name varchar(100) not null,
+    password varchar(255) not null,
+    role enum ('ADMIN','CUSTOMER','MECHANIC') not null,
+    primary key (id)
+);
+
+create table vehicles (
+    year integer,
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    user_id bigint not null,
+    engine_capacity varchar(20),
+    plate_no varchar(20) not null unique,
+    brand varchar(50) not null,
+    color varchar(50),
+    model varchar(100) not null,
+    primary key (id)
+);
+
+alter table if exists bookings
+   add constraint FKnp3ox4xnyj998c75f1ijs3ig7
+   foreign key (assigned_mechanic_id)
+   references users;
+
+alter table if exists bookings
+   add constraint FKjcwbou2jlblfwu14uoxs65b25
+   foreign key (service_id)
+   references services;
+
+alter table if exists bookings
+   add constraint FKeyog2oic85xg7hsu2je2lx3s6
+   foreign key (user_id)
+   references users;
+
+alter table if exists bookings
+   add constraint FKc0062bk3bchs55diw805avxq
+   foreign key (vehicle_id)
+   references vehicles;
+
+alter table if exists cart_items
+   add constraint FKpcttvuq4mxppo8sxggjtn5i2c
+   foreign key (cart_id)
+   references carts;
+
+alter table if exists cart_items
+   add constraint FKay7f5j03wxi5kxdb7dr7kgpw6
+   foreign key (inventory_id)
+   references inventory;
+
+alter table if exists carts
+   add constraint FKb5o626f86h46m4s7ms6ginnop
+   foreign key (user_id)
+   references users;
+
+alter table if exists invoice_payments
+   add constraint FKaa9if3io1iupfuqgsm0fbuch9
+   foreign key (invoice_id)
+   references invoices;
+
+alter table if exists invoice_receipts
+   add constraint FKgf393rp0ouieppucr375t38hj
+   foreign key (approved_by)
+   references users;
+
+alter table if exists invoice_receipts
+   add constraint FKgmd904knql0dgab2mfbq8flq
+   foreign key (invoice_payment_id)
+   references invoice_payments;
+
+alter table if exists invoices
+   add constraint FKb9bhb7xre5v64qvjeholh3qj0
+   foreign key (booking_id)
+   references bookings;
+
+alter table if exists order_items
+   add constraint FKbioxgbv59vetrxe0ejfubep1w
+   foreign key (order_id)
+   references orders;
+
+alter table if exists order_items
+   add constraint FK76mp91b53o02dnnbuktl2xiae
+   foreign key (part_id)
+   references inventory;
+
+alter table if exists orders
+   add constraint FK32ql8ubntj5uh44ph9659tiih
+   foreign key (user_id)
+   references users;
+
+alter table if exists pricing_rules
+   add constraint FKlj4tq03utatp1ub9ehdpp28d4
+   foreign key (service_id)
+   references services;
+
+alter table if exists receipts
+   add constraint FK2w4ixq7dec9ecngrerp345alq
+   foreign key (approved_by)
+   references users;
+
+alter table if exists receipts
+   add constraint FKaww993iieqbnyihe43g2ussrw
+   foreign key (order_id)
+   references orders;
+
+alter table if exists requests
+   add constraint FKi92irjti70vcq971x11oafp7d
+   foreign key (booking_id)
+   references bookings;
+
+alter table if exists requests
+   add constraint FK5xesmmiox401bq85gkobabsul
+   foreign key (mechanic_id)
+   references users;
+
+alter table if exists requests
+   add constraint FK7xbjasnnehacftex4x1a6yevy
+   foreign key (part_id)
+   references inventory;
+
+alter table if exists vehicles
+   add constraint FKo4u5y92lt2sx8y2dc1bb9sewc
+   foreign key (user_id)
+   references users;
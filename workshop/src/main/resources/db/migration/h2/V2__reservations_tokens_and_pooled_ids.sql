@@ -0,0 +1,70 @@
+-- Same changes as mysql/V2__reservations_tokens_and_pooled_ids.sql.
+
+alter table inventory
+   add column reserved_qty integer default 0 not null;
+
+create table invoice_number_counters (
+    counter_year integer not null,
+    next_value bigint not null,
+    primary key (counter_year)
+);
+
+create table refresh_tokens (
+    revoked boolean not null,
+    created_at timestamp(6),
+    expires_at timestamp(6) not null,
+    user_id bigint not null,
+    jti varchar(36) not null,
+    replaced_by varchar(36),
+    primary key (jti)
+);
+
+create table stock_reservations (
+    qty integer not null,
+    created_at timestamp(6),
+    expires_at timestamp(6),
+    id bigint not null,
+    order_id bigint not null,
+    part_id bigint not null,
+    updated_at timestamp(6),
+    status enum ('COMMITTED','HELD','RELEASED') not null,
+    primary key (id)
+);
+
+create sequence stock_reservations_seq start with 1 increment by 50;
+
+alter table if exists refresh_tokens
+   add constraint FK1lih5y2npsf8u5o3vhdb9y0os
+   foreign key (user_id)
+   references users;
+
+alter table if exists stock_reservations
+   add constraint FKp9blb4qtba2t0y1twnfym0tsi
+   foreign key (order_id)
+   references orders;
+
+alter table if exists stock_reservations
+   add constraint FKlgmu955wad7eupkr9d50pw0bk
+   foreign key (part_id)
+   references inventory;
+
+-- Pooled ids; the H2 databases are in memory and start empty, so the sequences start at 1
+alter table cart_items alter column id drop identity;
+
+alter table invoices alter column id drop identity;
+
+alter table order_items alter column id drop identity;
+
+alter table orders alter column id drop identity;
+
+alter table requests alter column id drop identity;
+
+create sequence cart_items_seq start with 1 increment by 50;
+
+create sequence invoices_seq start with 1 increment by 50;
+
+create sequence order_items_seq start with 1 increment by 50;
+
+create sequence orders_seq start with 1 increment by 50;
+
+create sequence requests_seq start with 1 increment by 50;
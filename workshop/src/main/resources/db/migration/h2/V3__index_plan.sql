@@ -0,0 +1,79 @@
+-- Same indexes as mysql/V3__index_plan.sql, which lists the query each one serves.
+
+create index idx_bookings_scheduled
+   on bookings (scheduled_date_time);
+
+create index idx_bookings_status_scheduled
+   on bookings (status, scheduled_date_time);
+
+create index idx_bookings_mechanic_scheduled
+   on bookings (assigned_mechanic_id, scheduled_date_time);
+
+create index idx_bookings_user_scheduled
+   on bookings (user_id, scheduled_date_time);
+
+create index idx_bookings_vehicle_scheduled
+   on bookings (vehicle_id, scheduled_date_time);
+
+create index idx_cart_items_cart_inventory
+   on cart_items (cart_id, inventory_id);
+
+create index idx_invoice_payments_created
+   on invoice_payments (created_at);
+
+create index idx_invoice_payments_status_created
+   on invoice_payments (status, created_at);
+
+create index idx_invoice_receipts_uploaded
+   on invoice_receipts (uploaded_at);
+
+create index idx_invoice_receipts_status_uploaded
+   on invoice_receipts (status, uploaded_at);
+
+create index idx_invoices_generated
+   on invoices (generated_at);
+
+create index idx_orders_created
+   on orders (created_at);
+
+create index idx_orders_status_created
+   on orders (status, created_at);
+
+create index idx_orders_user_created
+   on orders (user_id, created_at);
+
+create index idx_receipts_uploaded
+   on receipts (uploaded_at);
+
+create index idx_receipts_status_uploaded
+   on receipts (status, uploaded_at);
+
+create index idx_refresh_tokens_expires
+   on refresh_tokens (expires_at);
+
+create index idx_refresh_tokens_revoked_expires
+   on refresh_tokens (revoked, expires_at);
+
+create index idx_requests_requested
+   on requests (requested_at);
+
+create index idx_requests_status_requested
+   on requests (status, requested_at);
+
+create index idx_requests_mechanic_requested
+   on requests (mechanic_id, requested_at);
+
+create index idx_requests_booking_requested
+   on requests (booking_id, requested_at);
+
+create index idx_stock_reservations_order_status
+   on stock_reservations (order_id, status);
+
+create index idx_stock_reservations_status_expires
+   on stock_reservations (status, expires_at);
+
+create index idx_users_role_active
+   on users (role, active);
+
+create index idx_vehicles_user_created
+   on vehicles (user_id, created_at);
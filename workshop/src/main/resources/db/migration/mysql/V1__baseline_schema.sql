@@ -0,0 +1,326 @@
+-- Baseline schema for MySQL 8 (InnoDB): the schema of the last release that ran with
+-- spring.jpa.hibernate.ddl-auto=update, as Hibernate generated it for that release's entities,
+-- including the generated constraint names. Databases created by that release are baselined at
+-- version 1 (spring.flyway.baseline-on-migrate) and continue from V2.
+
+create table bookings (
+    assigned_mechanic_id bigint,
+    completed_at datetime(6),
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    scheduled_date_time datetime(6) not null,
+    service_id bigint not null,
+    started_at datetime(6),
+    updated_at datetime(6),
+    user_id bigint not null,
+    vehicle_id bigint not null,
+    notes varchar(500),
+    status_notes varchar(500),
+    status enum ('CANCELLED','COMPLETED','CONFIRMED','IN_PROGRESS','PENDING') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table cart_items (
+    quantity integer not null,
+    unit_price float(53) not null,
+    added_at datetime(6) not null,
+    cart_id bigint not null,
+    id bigint not null auto_increment,
+    inventory_id bigint not null,
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table carts (
+    created_at datetime(6) not null,
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    user_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table inventory (
+    active bit not null,
+    deleted bit not null,
+    min_stock_level integer not null,
+    qty integer not null,
+    unit_price decimal(10,2) not null,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    brand varchar(50),
+    category varchar(50),
+    part_code varchar(50),
+    part_name varchar(100) not null,
+    image_url varchar(500),
+    description varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table invoice_payments (
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    invoice_id bigint not null,
+    updated_at datetime(6),
+    status enum ('APPROVED','COMPLETED','PAYMENT_SUBMITTED','PENDING','REJECTED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table invoice_receipts (
+    amount decimal(10,2),
+    approved_at datetime(6),
+    approved_by bigint,
+    id bigint not null auto_increment,
+    invoice_payment_id bigint not null,
+    updated_at datetime(6),
+    uploaded_at datetime(6),
+    file_url varchar(500) not null,
+    notes varchar(1000),
+    admin_notes varchar(255),
+    status enum ('APPROVED','PENDING','REJECTED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table invoices (
+    parts_amount decimal(10,2) not null,
+    service_amount decimal(10,2) not null,
+    total_amount decimal(10,2) not null,
+    booking_id bigint not null,
+    generated_at datetime(6),
+    id bigint not null auto_increment,
+    invoice_number varchar(50) not null,
+    pdf_url varchar(500),
+    primary key (id)
+) engine=InnoDB;
+
+create table order_items (
+    price decimal(10,2) not null,
+    qty integer not null,
+    id bigint not null auto_increment,
+    order_id bigint not null,
+    part_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table orders (
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    user_id bigint not null,
+    status enum ('APPROVED','COMPLETED','PAYMENT_SUBMITTED','PENDING','REJECTED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table pricing_rules (
+    price decimal(10,2) not null,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    service_id bigint not null,
+    updated_at datetime(6),
+    vehicle_category varchar(50) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table receipts (
+    amount decimal(10,2),
+    approved_at datetime(6),
+    approved_by bigint,
+    id bigint not null auto_increment,
+    order_id bigint not null,
+    updated_at datetime(6),
+    uploaded_at datetime(6),
+    file_url varchar(500) not null,
+    notes varchar(1000),
+    admin_notes varchar(255),
+    status enum ('APPROVED','PENDING','REJECTED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table requests (
+    qty integer not null,
+    booking_id bigint not null,
+    id bigint not null auto_increment,
+    mechanic_id bigint not null,
+    part_id bigint not null,
+    requested_at datetime(6),
+    status enum ('APPROVED','PENDING','REJECTED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table services (
+    active bit not null,
+    base_price decimal(10,2) not null,
+    estimated_duration_minutes integer not null,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    category varchar(50) not null,
+    name varchar(100) not null,
+    description varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table users (
+    active bit not null,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    phone varchar(20),
+    email varchar(100) not null,
+    name varchar(100) not null,
+    password varchar(255) not null,
+    role enum ('ADMIN','CUSTOMER','MECHANIC') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table vehicles (
+    year integer,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    user_id bigint not null,
+    engine_capacity varchar(20),
+    plate_no varchar(20) not null,
+    brand varchar(50) not null,
+    color varchar(50),
+    model varchar(100) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table carts
+   add constraint UK64t7ox312pqal3p7fg9o503c2 unique (user_id);
+
+alter table inventory
+   add constraint UKiwwlrerhvbl8fu3fj7ylnpyfs unique (part_name);
+
+alter table invoice_payments
+   add constraint UKc2f7fsika7fjcdgl2laf8sykn unique (invoice_id);
+
+alter table invoice_receipts
+   add constraint UK4vxapg8nnvrfrfq037gjjv90n unique (invoice_payment_id);
+
+alter table invoices
+   add constraint UKqn380ix1ge287r0rd8th12bwi unique (booking_id);
+
+alter table invoices
+   add constraint UKl1x55mfsay7co0r3m9ynvipd5 unique (invoice_number);
+
+alter table pricing_rules
+   add constraint UK9ndp03jwy5qje5i8l71jjc8al unique (service_id, vehicle_category);
+
+alter table receipts
+   add constraint UKoq3k6lov98v737betmc0gna0f unique (order_id);
+
+alter table services
+   add constraint UKh4rqgjwnqidx6mvj4i22dxwxe unique (name);
+
+alter table users
+   add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
+
+alter table vehicles
+   add constraint UKkfpcgj8gmgxwqt9uvnw5au204 unique (plate_no);
+
+alter table bookings
+   add constraint FKnp3ox4xnyj998c75f1ijs3ig7
+   foreign key (assigned_mechanic_id)
+   references users (id);
+
+alter table bookings
+   add constraint FKjcwbou2jlblfwu14uoxs65b25
+   foreign key (service_id)
+   references services (id);
+
+alter table bookings
+   add constraint FKeyog2oic85xg7hsu2je2lx3s6
+   foreign key (user_id)
+   references users (id);
+
+alter table bookings
+   add constraint FKc0062bk3bchs55diw805avxq
+   foreign key (vehicle_id)
+   references vehicles (id);
+
+alter table cart_items
+   add constraint FKpcttvuq4mxppo8sxggjtn5i2c
+   foreign key (cart_id)
+   references carts (id);
+
+alter table cart_items
+   add constraint FKay7f5j03wxi5kxdb7dr7kgpw6
+   foreign key (inventory_id)
+   references inventory (id);
+
+alter table carts
+   add constraint FKb5o626f86h46m4s7ms6ginnop
+   foreign key (user_id)
+   references users (id);
+
+alter table invoice_payments
+   add constraint FKaa9if3io1iupfuqgsm0fbuch9
+   foreign key (invoice_id)
+   references invoices (id);
+
+alter table invoice_receipts
+   add constraint FKgf393rp0ouieppucr375t38hj
+   foreign key (approved_by)
+   references users (id);
+
+alter table invoice_receipts
+   add constraint FKgmd904knql0dgab2mfbq8flq
+   foreign key (invoice_payment_id)
+   references invoice_payments (id);
+
+alter table invoices
+   add constraint FKb9bhb7xre5v64qvjeholh3qj0
+   foreign key (booking_id)
+   references bookings (id);
+
+alter table order_items
+   add constraint FKbioxgbv59vetrxe0ejfubep1w
+   foreign key (order_id)
+   references orders (id);
+
+alter table order_items
+   add constraint FK76mp91b53o02dnnbuktl2xiae
+   foreign key (part_id)
+   references inventory (id);
+
+alter table orders
+   add constraint FK32ql8ubntj5uh44ph9659tiih
+   foreign key (user_id)
+   references users (id);
+
+alter table pricing_rules
+   add constraint FKlj4tq03utatp1ub9ehdpp28d4
+   foreign key (service_id)
+   references services (id);
+
+alter table receipts
+   add constraint FK2w4ixq7dec9ecngrerp345alq
+   foreign key (approved_by)
+   references users (id);
+
+alter table receipts
+   add constraint FKaww993iieqbnyihe43g2ussrw
+   foreign key (order_id)
+   references orders (id);
+
+alter table requests
+   add constraint FKi92irjti70vcq971x11oafp7d
+   foreign key (booking_id)
+   references bookings (id);
+
+alter table requests
+   add constraint FK5xesmmiox401bq85gkobabsul
+   foreign key (mechanic_id)
+   references users (id);
+
+alter table requests
+   add constraint FK7xbjasnnehacftex4x1a6yevy
+   foreign key (part_id)
+   references inventory (id);
+
+alter table vehicles
+   add constraint FKo4u5y92lt2sx8y2dc1bb9sewc
+   foreign key (user_id)
+   references users (id);
@@ -0,0 +1,103 @@
+-- Tables and columns added since the baseline: stock held by unpaid orders, refresh tokens,
+-- invoice number counters, and pooled id sequences for the rows that are written in batches.
+
+alter table inventory
+   add column reserved_qty integer default 0 not null;
+
+create table invoice_number_counters (
+    counter_year integer not null,
+    next_value bigint not null,
+    primary key (counter_year)
+) engine=InnoDB;
+
+create table refresh_tokens (
+    revoked bit not null,
+    created_at datetime(6),
+    expires_at datetime(6) not null,
+    user_id bigint not null,
+    jti varchar(36) not null,
+    replaced_by varchar(36),
+    primary key (jti)
+) engine=InnoDB;
+
+create table stock_reservations (
+    qty integer not null,
+    created_at datetime(6),
+    expires_at datetime(6),
+    id bigint not null,
+    order_id bigint not null,
+    part_id bigint not null,
+    updated_at datetime(6),
+    status enum ('COMMITTED','HELD','RELEASED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table stock_reservations_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into stock_reservations_seq values ( 1 );
+
+alter table refresh_tokens
+   add constraint FK1lih5y2npsf8u5o3vhdb9y0os
+   foreign key (user_id)
+   references users (id);
+
+alter table stock_reservations
+   add constraint FKp9blb4qtba2t0y1twnfym0tsi
+   foreign key (order_id)
+   references orders (id);
+
+alter table stock_reservations
+   add constraint FKlgmu955wad7eupkr9d50pw0bk
+   foreign key (part_id)
+   references inventory (id);
+
+-- Cart items, invoices, orders, order items and requests take their ids from pooled sequence
+-- tables (allocationSize 50) instead of auto_increment. Each table starts past the highest id
+-- already used, plus one block, so the first block handed out cannot collide with existing rows.
+-- Other tables reference some of these ids, which MySQL only lets the column change with the
+-- checks off.
+set foreign_key_checks = 0;
+
+alter table cart_items modify id bigint not null;
+
+alter table invoices modify id bigint not null;
+
+alter table order_items modify id bigint not null;
+
+alter table orders modify id bigint not null;
+
+alter table requests modify id bigint not null;
+
+set foreign_key_checks = 1;
+
+create table cart_items_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into cart_items_seq select coalesce(max(id), 0) + 51 from cart_items;
+
+create table invoices_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into invoices_seq select coalesce(max(id), 0) + 51 from invoices;
+
+create table order_items_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into order_items_seq select coalesce(max(id), 0) + 51 from order_items;
+
+create table orders_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into orders_seq select coalesce(max(id), 0) + 51 from orders;
+
+create table requests_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into requests_seq select coalesce(max(id), 0) + 51 from requests;
@@ -0,0 +1,148 @@
+-- Index plan: every repository query and the index that serves it.
+-- FK columns without an index of their own are indexed by MySQL when the constraint is added.
+--
+-- bookings
+--   findByUser[AndStatus]OrderByScheduledDateTimeDesc      idx_bookings_user_scheduled
+--   findByAssignedMechanic[AndStatus]..., findTodayBookingsByMechanic,
+--   countActivebookingsByMechanic, findUnassigned*          idx_bookings_mechanic_scheduled
+--   findByStatus..., findUpcoming/OverdueBookings, countByStatus,
+--   findTimeHeldFrom, findListingPage with a status         idx_bookings_status_scheduled
+--   findTodayBookings, findByScheduledDateTimeBetween..., countBookingsBetweenDates,
+--   findListingPage without a status                        idx_bookings_scheduled
+--   findByVehicleOrderByScheduledDateTimeDesc               idx_bookings_vehicle_scheduled
+-- cart_items
+--   findByCartId[AndInventoryId], findLinesByCartId, deleteByCartId   idx_cart_items_cart_inventory
+--   countCartItemsForInventory                              inventory_id FK
+--   *ByUserId, findQuantitiesByUserEmail                    carts.user_id unique, users.email unique
+-- carts: findByUser[Id][WithItems|ForUpdate], existsByUserId, deleteByUserId   user_id unique
+-- inventory: lookups by id or part_name (unique). The deleted / active / stock filters read the
+--   whole table; it is small and its hot reads are served from memory (StockAvailability,
+--   PartsSearchIndex, the partsCatalog cache), so it gets no secondary index.
+-- invoice_number_counters: primary key (counter_year)
+-- invoice_payments
+--   findByStatus[In]OrderByCreatedAtDesc, countByStatus, findPaymentRows   idx_invoice_payments_status_created
+--   findByCreatedAtBetween..., findRecentPayments           idx_invoice_payments_created
+--   findByInvoice                                           invoice_id unique
+--   findByCustomerId                                        idx_bookings_user_scheduled, then invoice / payment unique keys
+-- invoice_receipts
+--   findByStatus[In]OrderByUploadedAtDesc, countByStatus    idx_invoice_receipts_status_uploaded
+--   findByUploadedAtBetween..., findRecentReceipts          idx_invoice_receipts_uploaded
+--   findByInvoicePayment                                    invoice_payment_id unique
+-- invoices
+--   findByBooking, findByInvoiceNumber, existsByInvoiceNumber, MAX(invoice_number) in InvoiceNumberAllocator   unique keys
+--   findByGeneratedAtBetween..., revenue sums, getMonthlyRevenue, findRecentInvoices,
+--   countInvoicesBetweenDates                               idx_invoices_generated
+--   findByCustomer                                          idx_bookings_user_scheduled, then booking_id unique
+-- order_items: findByOrder, findByOrderIdWithPart         order_id FK; findByPart: part_id FK
+-- orders
+--   findByUser[AndStatus]OrderByCreatedAtDesc               idx_orders_user_created
+--   findByStatus..., findPendingOrders, findOrdersWithReceipts, countByStatus   idx_orders_status_created
+--   findByCreatedAtBetween..., countOrdersBetweenDates, findRecentOrders,
+--   findAdminOrderIds                                       idx_orders_created
+-- pricing_rules: by service (and category)                unique (service_id, vehicle_category)
+-- receipts
+--   findByStatusOrderByUploadedAtDesc, findPendingReceipts, countByStatus   idx_receipts_status_uploaded
+--   findByUploadedAtBetween..., countReceiptsBetweenDates, findRecentReceipts   idx_receipts_uploaded
+--   findByOrder                                             order_id unique
+--   findByApprovedByOrderByApprovedAtDesc                   approved_by FK
+-- refresh_tokens
+--   revokeIfActive                                          primary key (jti)
+--   findActiveByUserId, revokeAllByUserId, deleteByUserId   user_id FK
+--   deleteExpired                                           idx_refresh_tokens_expires
+--   findRevokedUnexpired                                    idx_refresh_tokens_revoked_expires
+-- requests
+--   findByBookingOrderByRequestedAtAsc                      idx_requests_booking_requested
+--   findByMechanic[AndStatus]OrderByRequestedAtDesc         idx_requests_mechanic_requested
+--   findByStatusOrderByRequestedAtDesc                      idx_requests_status_requested
+--   findRecentRequests, findByRequestedAtBetween..., findTodayRequests   idx_requests_requested
+--   findByPartOrderByRequestedAtDesc, countRequestsForInventory   part_id FK
+-- services: findByName, existsByName                       name unique; the rest read the (small) table
+-- stock_reservations
+--   find*ByOrderIdForUpdate, existsByOrderId                idx_stock_reservations_order_status
+--   findExpiringOrders                                      idx_stock_reservations_status_expires
+-- users
+--   findByEmail[AndActive], existsByEmail                   email unique
+--   findByRole[AndActive], findActiveUsersByRole, findAvailableMechanics,
+--   findActiveIdsByRole, countByRole                        idx_users_role_active
+-- vehicles
+--   findByUser, findByUserOrderByCreatedAtDesc, countVehiclesByUserId   idx_vehicles_user_created
+--   findByPlateNo, existsByPlateNo                          plate_no unique
+
+
+create index idx_bookings_scheduled
+   on bookings (scheduled_date_time);
+
+create index idx_bookings_status_scheduled
+   on bookings (status, scheduled_date_time);
+
+create index idx_bookings_mechanic_scheduled
+   on bookings (assigned_mechanic_id, scheduled_date_time);
+
+create index idx_bookings_user_scheduled
+   on bookings (user_id, scheduled_date_time);
+
+create index idx_bookings_vehicle_scheduled
+   on bookings (vehicle_id, scheduled_date_time);
+
+create index idx_cart_items_cart_inventory
+   on cart_items (cart_id, inventory_id);
+
+create index idx_invoice_payments_created
+   on invoice_payments (created_at);
+
+create index idx_invoice_payments_status_created
+   on invoice_payments (status, created_at);
+
+create index idx_invoice_receipts_uploaded
+   on invoice_receipts (uploaded_at);
+
+create index idx_invoice_receipts_status_uploaded
+   on invoice_receipts (status, uploaded_at);
+
+create index idx_invoices_generated
+   on invoices (generated_at);
+
+create index idx_orders_created
+   on orders (created_at);
+
+create index idx_orders_status_created
+   on orders (status, created_at);
+
+create index idx_orders_user_created
+   on orders (user_id, created_at);
+
+create index idx_receipts_uploaded
+   on receipts (uploaded_at);
+
+create index idx_receipts_status_uploaded
+   on receipts (status, uploaded_at);
+
+create index idx_refresh_tokens_expires
+   on refresh_tokens (expires_at);
+
+create index idx_refresh_tokens_revoked_expires
+   on refresh_tokens (revoked, expires_at);
+
+create index idx_requests_requested
+   on requests (requested_at);
+
+create index idx_requests_status_requested
+   on requests (status, requested_at);
+
+create index idx_requests_mechanic_requested
+   on requests (mechanic_id, requested_at);
+
+create index idx_requests_booking_requested
+   on requests (booking_id, requested_at);
+
+create index idx_stock_reservations_order_status
+   on stock_reservations (order_id, status);
+
+create index idx_stock_reservations_status_expires
+   on stock_reservations (status, expires_at);
+
+create index idx_users_role_active
+   on users (role, active);
+
+create index idx_vehicles_user_created
+   on vehicles (user_id, created_at);
@@ -0,0 +1,87 @@
+package com.motosnap.workshop;
+
+import com.motosnap.workshop.dto.InventoryRequest;
+import com.motosnap.workshop.entity.Inventory;
+import com.motosnap.workshop.entity.Role;
+import com.motosnap.workshop.entity.User;
+import com.motosnap.workshop.repository.UserRepository;
+import com.motosnap.workshop.service.InventoryService;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rows for tests that share the in-memory database. Every email and part code
+ * gets a unique suffix, so tests never see each other's data by name.
+ */
+public class TestData {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong(System.nanoTime() % 1_000_000);
+
+    private final UserRepository userRepository;
+    private final InventoryService inventoryService;
+
+    public TestData(UserRepository userRepository, InventoryService inventoryService) {
+        this.userRepository = userRepository;
+        this.inventoryService = inventoryService;
+    }
+
+    public static String unique(String prefix) {
+        return prefix + "-" + SEQUENCE.incrementAndGet();
+    }
+
+    public User user(Role role) {
+        String name = unique(role.name().toLowerCase());
+        User user = new User();
+        user.setEmail(name + "@test.local");
+        user.setName(name);
+        user.setPassword("not-a-real-hash");
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+
+    public Inventory part(int qty, double unitPrice) {
+        InventoryRequest request = new InventoryRequest();
+        String code = unique("PART");
+        request.setPartName("Part " + code);
+        request.setPartCode(code);
+        request.setQty(qty);
+        request.setUnitPrice(unitPrice);
+        request.setMinStockLevel(1);
+        request.setCategory("Test");
+        request.setBrand("Test");
+        return inventoryService.createInventoryItem(request);
+    }
+
+    /**
+     * Completed bookings for one new service and vehicle of the customer, ready to
+     * be invoiced. Written with plain SQL so thousands can be added quickly.
+     */
+    public List<Long> completedBookings(JdbcTemplate jdbcTemplate, User customer, int count) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(
+            "INSERT INTO services (active, base_price, estimated_duration_minutes, category, name, created_at, updated_at)"
+                + " VALUES (true, 80.00, 60, 'Test', ?, ?, ?)",
+            unique("Service"), now, now);
+        Long serviceId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM services", Long.class);
+        jdbcTemplate.update(
+            "INSERT INTO vehicles (user_id, plate_no, brand, model, created_at, updated_at) VALUES (?, ?, 'Test', 'Test', ?, ?)",
+            customer.getId(), unique("PLATE"), now, now);
+        Long vehicleId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM vehicles", Long.class);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[] {customer.getId(), vehicleId, serviceId, now, now, now, now});
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO bookings (user_id, vehicle_id, service_id, status, scheduled_date_time, completed_at, created_at, updated_at)"
+                + " VALUES (?, ?, ?, 'COMPLETED', ?, ?, ?, ?)",
+            rows);
+        return jdbcTemplate.queryForList(
+            "SELECT id FROM bookings WHERE vehicle_id = ? ORDER BY id", Long.class, vehicleId);
+    }
+}
@@ -0,0 +1,95 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.TestData;
+import com.motosnap.workshop.dto.CartItemRequest;
+import com.motosnap.workshop.dto.OrderResponse;
+import com.motosnap.workshop.entity.Inventory;
+import com.motosnap.workshop.entity.Role;
+import com.motosnap.workshop.entity.User;
+import com.motosnap.workshop.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The paginated admin order feed runs the same number of statements whatever the
+ * page size: ids, count, and one fetch of the page's orders with items, parts and
+ * receipts.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AdminOrderFeedQueryCountTest {
+
+    private static final int ORDERS = 25;
+    private static final long STATEMENTS_PER_PAGE = 3;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User customer;
+
+    @BeforeEach
+    void placeOrders() {
+        TestData data = new TestData(userRepository, inventoryService);
+        customer = data.user(Role.CUSTOMER);
+        Inventory oil = data.part(500, 30.0);
+        Inventory filter = data.part(500, 12.5);
+        for (int i = 0; i < ORDERS; i++) {
+            cartService.addItemToCart(customer.getEmail(), new CartItemRequest(oil.getId(), 1));
+            cartService.addItemToCart(customer.getEmail(), new CartItemRequest(filter.getId(), 2));
+            OrderResponse order = orderService.createOrderFromCart(customer.getEmail());
+            if (i % 2 == 0) {
+                jdbcTemplate.update(
+                    "INSERT INTO receipts (order_id, amount, file_url, status, uploaded_at) VALUES (?, 55.00, 'receipt.pdf', 'PENDING', CURRENT_TIMESTAMP)",
+                    order.getId());
+            }
+        }
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithPageSize() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (int size : new int[] {1, 5, 10, 20}) {
+            statistics.clear();
+            Page<OrderResponse> page = orderService.getAllOrders(
+                null, null, null, customer.getEmail(), PageRequest.of(0, size));
+            long statements = statistics.getPrepareStatementCount();
+
+            assertThat(statements).as("statements for a page of %d", size).isEqualTo(STATEMENTS_PER_PAGE);
+            assertThat(page.getTotalElements()).isEqualTo(ORDERS);
+            assertThat(page.getContent()).hasSize(size);
+            assertThat(page.getContent()).allMatch(order -> order.getOrderItems().size() == 2);
+            assertThat(page.getContent()).allMatch(order -> order.isHasReceipt() == hasReceipt(order.getId()));
+        }
+    }
+
+    private boolean hasReceipt(Long orderId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM receipts WHERE order_id = ?", Integer.class, orderId) > 0;
+    }
+}
@@ -0,0 +1,127 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.TestData;
+import com.motosnap.workshop.dto.InvoicePaymentFeedResponse;
+import com.motosnap.workshop.dto.InvoicePaymentResponseDTO;
+import com.motosnap.workshop.entity.Role;
+import com.motosnap.workshop.entity.User;
+import com.motosnap.workshop.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The admin payment lists are built from one projection query, however many
+ * payments there are and whether they have a mechanic or a receipt.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AdminPaymentQueryCountTest {
+
+    private static final int PAYMENTS = 30;
+    private static final int FEED_PAGE = 7;
+
+    @Autowired
+    private InvoicePaymentService invoicePaymentService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User customer;
+    private User mechanic;
+
+    @BeforeEach
+    void submitPayments() {
+        TestData data = new TestData(userRepository, inventoryService);
+        customer = data.user(Role.CUSTOMER);
+        mechanic = data.user(Role.MECHANIC);
+        List<Long> bookingIds = data.completedBookings(jdbcTemplate, customer, PAYMENTS);
+        for (int i = 0; i < bookingIds.size(); i++) {
+            Long bookingId = bookingIds.get(i);
+            if (i % 2 == 0) {
+                jdbcTemplate.update("UPDATE bookings SET assigned_mechanic_id = ? WHERE id = ?", mechanic.getId(), bookingId);
+            }
+            Long invoiceId = invoiceService.generateInvoiceForBooking(bookingId).getId();
+            jdbcTemplate.update(
+                "INSERT INTO invoice_payments (invoice_id, status, created_at, updated_at) VALUES (?, 'PAYMENT_SUBMITTED', ?, ?)",
+                invoiceId, LocalDateTime.now(), LocalDateTime.now());
+            if (i % 3 == 0) {
+                jdbcTemplate.update(
+                    "INSERT INTO invoice_receipts (invoice_payment_id, amount, file_url, status, uploaded_at)"
+                        + " SELECT id, 80.00, 'receipt.pdf', 'PENDING', CURRENT_TIMESTAMP FROM invoice_payments WHERE invoice_id = ?",
+                    invoiceId);
+            }
+        }
+    }
+
+    @Test
+    void pendingAndRecentListsTakeOneStatement() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        List<InvoicePaymentResponseDTO> pending = invoicePaymentService.getPendingPaymentsAsDTO();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertOwnPayments(pending);
+
+        statistics.clear();
+        List<InvoicePaymentResponseDTO> recent = invoicePaymentService.getRecentPaymentsAsDTO(7);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertOwnPayments(recent);
+    }
+
+    @Test
+    void feedTakesOneStatementPerPage() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<InvoicePaymentResponseDTO> seen = new ArrayList<>();
+        LocalDateTime beforeCreatedAt = null;
+        Long beforeId = null;
+        boolean hasMore = true;
+        while (hasMore) {
+            statistics.clear();
+            InvoicePaymentFeedResponse page = invoicePaymentService.getPaymentFeed(null, beforeCreatedAt, beforeId, FEED_PAGE);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+            assertThat(page.getPayments()).hasSizeLessThanOrEqualTo(FEED_PAGE);
+            seen.addAll(page.getPayments());
+            hasMore = page.isHasMore();
+            beforeCreatedAt = page.getNextCreatedAt();
+            beforeId = page.getNextId();
+        }
+        assertThat(seen).extracting(InvoicePaymentResponseDTO::getId).doesNotHaveDuplicates();
+        assertOwnPayments(seen);
+    }
+
+    private void assertOwnPayments(List<InvoicePaymentResponseDTO> payments) {
+        List<InvoicePaymentResponseDTO> own = payments.stream()
+            .filter(payment -> customer.getName().equals(payment.getInvoice().getBooking().getCustomerName()))
+            .toList();
+        assertThat(own).hasSize(PAYMENTS);
+        assertThat(own).filteredOn(payment -> mechanic.getName().equals(payment.getInvoice().getBooking().getAssignedMechanicName()))
+            .hasSize((PAYMENTS + 1) / 2);
+        assertThat(own).filteredOn(payment -> payment.getReceipt() != null)
+            .hasSize((PAYMENTS + 2) / 3);
+    }
+}
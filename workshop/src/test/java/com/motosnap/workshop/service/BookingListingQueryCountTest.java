@@ -0,0 +1,139 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.TestData;
+import com.motosnap.workshop.dto.BookingFeedResponse;
+import com.motosnap.workshop.dto.BookingResponse;
+import com.motosnap.workshop.entity.Role;
+import com.motosnap.workshop.entity.User;
+import com.motosnap.workshop.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The booking listings load service, vehicle, customer, mechanic and the invoice
+ * chain in the listing query itself, so their statement count does not grow with
+ * the number of bookings, mechanics or invoices.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingListingQueryCountTest {
+
+    private static final int BOOKINGS = 24;
+    private static final int FEED_PAGE = 5;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User customer;
+    private User mechanic;
+
+    @BeforeEach
+    void createBookings() {
+        TestData data = new TestData(userRepository, inventoryService);
+        customer = data.user(Role.CUSTOMER);
+        mechanic = data.user(Role.MECHANIC);
+        List<Long> bookingIds = data.completedBookings(jdbcTemplate, customer, BOOKINGS);
+        for (int i = 0; i < bookingIds.size(); i++) {
+            Long bookingId = bookingIds.get(i);
+            if (i % 2 == 0) {
+                jdbcTemplate.update("UPDATE bookings SET assigned_mechanic_id = ? WHERE id = ?", mechanic.getId(), bookingId);
+            }
+            if (i % 3 == 0) {
+                Long invoiceId = invoiceService.generateInvoiceForBooking(bookingId).getId();
+                jdbcTemplate.update(
+                    "INSERT INTO invoice_payments (invoice_id, status, created_at, updated_at) VALUES (?, 'PAYMENT_SUBMITTED', ?, ?)",
+                    invoiceId, LocalDateTime.now(), LocalDateTime.now());
+                jdbcTemplate.update(
+                    "INSERT INTO invoice_receipts (invoice_payment_id, amount, file_url, status, uploaded_at)"
+                        + " SELECT id, 80.00, 'receipt.pdf', 'PENDING', CURRENT_TIMESTAMP FROM invoice_payments WHERE invoice_id = ?",
+                    invoiceId);
+            }
+        }
+    }
+
+    @Test
+    void listingsTakeOneStatementPlusTheUserLookup() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        List<BookingResponse> all = bookingService.getAllBookings();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertOwnBookings(all);
+
+        statistics.clear();
+        List<BookingResponse> today = bookingService.getTodayBookings();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertOwnBookings(today);
+
+        statistics.clear();
+        List<BookingResponse> customerBookings = bookingService.getUserBookings(customer.getEmail());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertOwnBookings(customerBookings);
+
+        statistics.clear();
+        List<BookingResponse> mechanicBookings = bookingService.getMechanicBookings(mechanic.getEmail());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(mechanicBookings).hasSize((BOOKINGS + 1) / 2);
+        assertThat(mechanicBookings).allMatch(booking -> mechanic.getName().equals(booking.getAssignedMechanicName()));
+    }
+
+    @Test
+    void pagesTakeOneStatementEach() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<BookingResponse> seen = new ArrayList<>();
+        LocalDateTime beforeScheduledDateTime = null;
+        Long beforeId = null;
+        boolean hasMore = true;
+        while (hasMore) {
+            statistics.clear();
+            BookingFeedResponse page = bookingService.getBookingsPage(null, beforeScheduledDateTime, beforeId, FEED_PAGE);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+            assertThat(page.getBookings()).hasSizeLessThanOrEqualTo(FEED_PAGE);
+            seen.addAll(page.getBookings());
+            hasMore = page.isHasMore();
+            beforeScheduledDateTime = page.getNextScheduledDateTime();
+            beforeId = page.getNextId();
+        }
+        assertThat(seen).extracting(BookingResponse::getId).doesNotHaveDuplicates();
+        assertOwnBookings(seen);
+    }
+
+    private void assertOwnBookings(List<BookingResponse> bookings) {
+        List<BookingResponse> own = bookings.stream()
+            .filter(booking -> customer.getId().equals(booking.getCustomerId()))
+            .toList();
+        assertThat(own).hasSize(BOOKINGS);
+        assertThat(own).filteredOn(booking -> mechanic.getName().equals(booking.getAssignedMechanicName()))
+            .hasSize((BOOKINGS + 1) / 2);
+        assertThat(own).filteredOn(booking -> Boolean.TRUE.equals(booking.getHasInvoice()))
+            .hasSize((BOOKINGS + 2) / 3);
+    }
+}
@@ -0,0 +1,122 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.TestData;
+import com.motosnap.workshop.dto.CartItemRequest;
+import com.motosnap.workshop.entity.Inventory;
+import com.motosnap.workshop.entity.Role;
+import com.motosnap.workshop.entity.User;
+import com.motosnap.workshop.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Parallel checkouts of one part must never take more than its stock.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CheckoutConcurrencyTest {
+
+    private static final int CUSTOMERS = 300;
+    private static final int STOCK = 50;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void parallelCheckoutsOfOnePartNeverOversell() throws Exception {
+        TestData data = new TestData(userRepository, inventoryService);
+        Inventory part = data.part(STOCK, 12.5);
+        List<String> customers = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            User customer = data.user(Role.CUSTOMER);
+            cartService.addItemToCart(customer.getEmail(), new CartItemRequest(part.getId(), 1));
+            customers.add(customer.getEmail());
+        }
+
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        AtomicInteger lowestAvailable = new AtomicInteger(STOCK);
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            // Watches the row while the checkouts run
+            Future<?> monitor = pool.submit(() -> {
+                while (running.get()) {
+                    lowestAvailable.accumulateAndGet(available(part.getId()), Math::min);
+                }
+            });
+            List<Future<?>> checkouts = new ArrayList<>();
+            for (String email : customers) {
+                checkouts.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.createOrderFromCart(email);
+                        placed.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        assertThat(e.getMessage()).contains("Insufficient stock");
+                        refused.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> checkout : checkouts) {
+                checkout.get(2, TimeUnit.MINUTES);
+            }
+            running.set(false);
+            monitor.get(10, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+            "SELECT qty, reserved_qty FROM inventory WHERE id = ?", part.getId());
+        int qty = ((Number) row.get("qty")).intValue();
+        int reserved = ((Number) row.get("reserved_qty")).intValue();
+        int orderedUnits = jdbcTemplate.queryForObject(
+            "SELECT COALESCE(SUM(qty), 0) FROM order_items WHERE part_id = ?", Integer.class, part.getId());
+
+        assertThat(placed.get() + refused.get()).isEqualTo(CUSTOMERS);
+        assertThat(placed.get()).isEqualTo(STOCK);
+        assertThat(orderedUnits).isEqualTo(placed.get());
+        assertThat(qty).isEqualTo(STOCK);
+        assertThat(reserved).isEqualTo(placed.get());
+        assertThat(lowestAvailable.get()).isGreaterThanOrEqualTo(0);
+        assertThat(qty - reserved).isGreaterThanOrEqualTo(0);
+    }
+
+    private int available(Long inventoryId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT qty - reserved_qty FROM inventory WHERE id = ?", Integer.class, inventoryId);
+    }
+}
@@ -0,0 +1,83 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.TestData;
+import com.motosnap.workshop.entity.Role;
+import com.motosnap.workshop.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Thousands of invoices generated in parallel must all get distinct numbers.
+ * Every call runs inside a transaction holding one of the two test pool
+ * connections, and the small block size makes most of them queue behind a
+ * block reservation.
+ */
+@SpringBootTest(properties = "invoice.number.block-size=5")
+@ActiveProfiles("test")
+class InvoiceNumberConcurrencyTest {
+
+    private static final int INVOICES = 2000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void parallelInvoicesGetDistinctNumbers() throws Exception {
+        TestData data = new TestData(userRepository, inventoryService);
+        List<Long> bookingIds = data.completedBookings(jdbcTemplate, data.user(Role.CUSTOMER), INVOICES);
+
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> invoices = new ArrayList<>();
+            for (Long bookingId : bookingIds) {
+                invoices.add(pool.submit(() -> {
+                    start.await();
+                    numbers.add(invoiceService.generateInvoiceForBooking(bookingId).getInvoiceNumber());
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> invoice : invoices) {
+                invoice.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int stored = jdbcTemplate.queryForObject(
+            "SELECT COUNT(DISTINCT i.invoice_number) FROM invoices i JOIN bookings b ON b.id = i.booking_id"
+                + " WHERE b.vehicle_id = (SELECT vehicle_id FROM bookings WHERE id = ?)",
+            Integer.class, bookingIds.get(0));
+
+        assertThat(numbers).hasSize(INVOICES);
+        assertThat(numbers).allMatch(number -> number.matches("INV-\\d{4}-\\d{6}"));
+        assertThat(stored).isEqualTo(INVOICES);
+    }
+}
@@ -0,0 +1,154 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.TestData;
+import com.motosnap.workshop.entity.Inventory;
+import com.motosnap.workshop.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * PartsSearchIndex against the JPQL queries it replaced, on a few thousand parts.
+ * Both must find the same parts; the timings are printed and the index has to
+ * beat the LIKE '%term%' scans.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PartsSearchBenchmarkTest {
+
+    private static final int PARTS = 5000;
+    private static final int WARMUP = 10;
+    private static final int ROUNDS = 50;
+
+    private static final String[] NAMES = {"Brake Pad", "Oil Filter", "Chain Kit", "Spark Plug", "Clutch Cable",
+        "Air Filter", "Brake Disc", "Fork Seal", "Drive Belt", "Head Gasket"};
+    private static final String[] CATEGORIES = {"Brakes", "Engine", "Drivetrain", "Suspension", "Electrical"};
+    private static final String[] BRANDS = {"Brembo", "NGK", "DID", "Bosch", "Mahle", "KYB", "Gates"};
+
+    @Autowired
+    private PartsSearchIndex partsSearchIndex;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String tag;
+
+    @BeforeAll
+    void seedParts() {
+        tag = TestData.unique("BM").toLowerCase();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < PARTS; i++) {
+            String name = NAMES[i % NAMES.length];
+            rows.add(new Object[] {
+                name + " " + tag + "-" + i,
+                tag + "-" + i,
+                "Genuine " + name.toLowerCase() + " for " + (i % 2 == 0 ? "sport" : "touring") + " bikes",
+                CATEGORIES[i % CATEGORIES.length],
+                BRANDS[i % BRANDS.length],
+                i % 10 != 0,
+                now, now
+            });
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO inventory (part_name, part_code, description, qty, reserved_qty, unit_price, min_stock_level,"
+                + " category, brand, active, deleted, created_at, updated_at)"
+                + " VALUES (?, ?, ?, 20, 0, 15.00, 5, ?, ?, ?, false, ?, ?)",
+            rows);
+        partsSearchIndex.rebuild();
+    }
+
+    @Test
+    void indexFindsWhatTheQueriesFindAndIsFaster() {
+        List<String> terms = List.of("brake", "filter", "plug " + tag, tag + "-42", "kit", "zzzz");
+        long indexNanos = 0;
+        long queryNanos = 0;
+
+        for (String term : terms) {
+            assertThat(new HashSet<>(partsSearchIndex.searchNameOrCode(term)))
+                .as("name or code search for '%s'", term)
+                .isEqualTo(ids(inventoryRepository
+                    .findByPartNameContainingIgnoreCaseOrPartCodeContainingIgnoreCaseAndNotDeleted(term, term)));
+            indexNanos += time(() -> partsSearchIndex.searchNameOrCode(term));
+            queryNanos += time(() -> inventoryRepository
+                .findByPartNameContainingIgnoreCaseOrPartCodeContainingIgnoreCaseAndNotDeleted(term, term));
+        }
+        for (String category : CATEGORIES) {
+            assertThat(new HashSet<>(partsSearchIndex.findByCategory(category, false)))
+                .as("category %s", category)
+                .isEqualTo(ids(inventoryRepository.findByCategoryIgnoreCaseAndNotDeleted(category)));
+            indexNanos += time(() -> partsSearchIndex.findByCategory(category, false));
+            queryNanos += time(() -> inventoryRepository.findByCategoryIgnoreCaseAndNotDeleted(category));
+        }
+        for (String brand : BRANDS) {
+            assertThat(new HashSet<>(partsSearchIndex.findByBrand(brand, false)))
+                .as("brand %s", brand)
+                .isEqualTo(ids(inventoryRepository.findByBrandIgnoreCaseAndNotDeleted(brand)));
+            indexNanos += time(() -> partsSearchIndex.findByBrand(brand, false));
+            queryNanos += time(() -> inventoryRepository.findByBrandIgnoreCaseAndNotDeleted(brand));
+        }
+
+        System.out.println("DEBUG: Parts search over " + PARTS + " parts: index " + indexNanos / 1000 / ROUNDS
+            + " us, JPQL " + queryNanos / 1000 / ROUNDS + " us per round of "
+            + (terms.size() + CATEGORIES.length + BRANDS.length) + " searches");
+        assertThat(indexNanos).isLessThan(queryNanos);
+    }
+
+    @Test
+    void catalogSearchMatchesTheDatabaseScan() {
+        List<Inventory> parts = inventoryRepository.findAllNonDeleted();
+        String[][] searches = {
+            {"brake", null, null},
+            {"touring", null, null},
+            {"genuine sport", null, null},
+            {"ngk", null, null},
+            {"filter", "Engine", null},
+            {"disc", null, "Brembo"},
+            {null, "Brakes", "Bosch"},
+            {"ch", null, null},
+            {tag + "-7", null, null},
+        };
+        for (String[] search : searches) {
+            assertThat(partsSearchIndex.search(search[0], search[1], search[2], true))
+                .as("catalog search %s / %s / %s", search[0], search[1], search[2])
+                .isEqualTo(PartsSearchIndex.searchParts(parts, search[0], search[1], search[2], true));
+        }
+    }
+
+    private static long time(Supplier<?> search) {
+        for (int i = 0; i < WARMUP; i++) {
+            search.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            search.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static Set<Long> ids(List<Inventory> parts) {
+        Set<Long> ids = new HashSet<>();
+        for (Inventory part : parts) {
+            ids.add(part.getId());
+        }
+        return ids;
+    }
+}
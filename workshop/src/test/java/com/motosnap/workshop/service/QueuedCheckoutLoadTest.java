@@ -0,0 +1,133 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.TestData;
+import com.motosnap.workshop.dto.CartItemRequest;
+import com.motosnap.workshop.dto.CheckoutTicketResponse;
+import com.motosnap.workshop.entity.Inventory;
+import com.motosnap.workshop.entity.Role;
+import com.motosnap.workshop.entity.User;
+import com.motosnap.workshop.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many queued checkouts of a few hot parts, spread over the admission shards.
+ * Every ticket must finish and no part may be sold beyond its stock.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class QueuedCheckoutLoadTest {
+
+    private static final int CUSTOMERS = 300;
+    private static final int THREADS = 32;
+    private static final long TIMEOUT_MS = TimeUnit.MINUTES.toMillis(2);
+
+    @Autowired
+    private CheckoutAdmissionService checkoutAdmissionService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void everyTicketFinishesWithoutOverselling() throws Exception {
+        TestData data = new TestData(userRepository, inventoryService);
+        // Consecutive ids, so the parts sit on different shards
+        Inventory single = data.part(40, 10.0);
+        Inventory shared = data.part(40, 20.0);
+        Inventory scarce = data.part(20, 30.0);
+
+        // A third of the customers want only the single part; the rest want the
+        // shared part, and half of those also want two of the scarce one
+        List<String> customers = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            User customer = data.user(Role.CUSTOMER);
+            if (i % 3 == 0) {
+                cartService.addItemToCart(customer.getEmail(), new CartItemRequest(single.getId(), 1));
+            } else {
+                cartService.addItemToCart(customer.getEmail(), new CartItemRequest(shared.getId(), 1));
+                if (i % 3 == 2) {
+                    cartService.addItemToCart(customer.getEmail(), new CartItemRequest(scarce.getId(), 2));
+                }
+            }
+            customers.add(customer.getEmail());
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<CheckoutTicketResponse>> results = new ArrayList<>();
+        try {
+            for (String email : customers) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return awaitFinished(email, checkoutAdmissionService.submit(email));
+                }));
+            }
+            start.countDown();
+        } finally {
+            pool.shutdown();
+        }
+
+        int completed = 0;
+        int rejected = 0;
+        for (Future<CheckoutTicketResponse> result : results) {
+            CheckoutTicketResponse ticket = result.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            assertThat(ticket.isFinished()).as("ticket %s finished", ticket.getTicketId()).isTrue();
+            assertThat(ticket.getStatus()).as(ticket.getMessage()).isNotEqualTo(CheckoutTicketResponse.Status.FAILED);
+            if (ticket.getStatus() == CheckoutTicketResponse.Status.COMPLETED) {
+                assertThat(ticket.getOrderId()).isNotNull();
+                completed++;
+            } else {
+                rejected++;
+            }
+        }
+
+        assertThat(completed + rejected).isEqualTo(CUSTOMERS);
+        assertThat(orderedUnits(single)).isEqualTo(40);
+        assertThat(orderedUnits(shared)).isBetween(1, 40);
+        assertThat(orderedUnits(scarce)).isBetween(2, 20);
+        assertThat(orderedUnits(single) + orderedUnits(shared)).isEqualTo(completed);
+        for (Inventory part : List.of(single, shared, scarce)) {
+            Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT qty, reserved_qty FROM inventory WHERE id = ?", part.getId());
+            assertThat(((Number) row.get("qty")).intValue()).isEqualTo(part.getQty());
+            assertThat(((Number) row.get("reserved_qty")).intValue()).isEqualTo(orderedUnits(part));
+        }
+    }
+
+    private CheckoutTicketResponse awaitFinished(String email, CheckoutTicketResponse ticket) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!ticket.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            ticket = checkoutAdmissionService.getTicket(email, ticket.getTicketId());
+        }
+        return ticket;
+    }
+
+    private int orderedUnits(Inventory part) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COALESCE(SUM(qty), 0) FROM order_items WHERE part_id = ?", Integer.class, part.getId());
+    }
+}
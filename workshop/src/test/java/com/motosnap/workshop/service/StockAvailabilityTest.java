@@ -0,0 +1,141 @@
+package com.motosnap.workshop.service;
+
+import com.motosnap.workshop.repository.InventoryRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The open-addressing table against a HashMap, and the journal that carries
+ * changes made while a rebuild reads the database over to the rebuilt table.
+ */
+class StockAvailabilityTest {
+
+    private static final int OPERATIONS = 200_000;
+
+    @Test
+    void tableBehavesLikeAHashMap() {
+        Random random = new Random(42);
+        StockAvailability.Table table = new StockAvailability.Table(16);
+        Map<Long, Integer> expected = new HashMap<>();
+        int resizes = 0;
+        int removals = 0;
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            // Few keys, so probe runs collide and removals leave holes in them
+            long key = 1 + random.nextInt(i < OPERATIONS / 2 ? 64 : 2048);
+            int operation = random.nextInt(10);
+            if (operation < 4) {
+                if (table.needsResize()) {
+                    table = table.resized();
+                    resizes++;
+                }
+                int value = random.nextInt(1000);
+                table.put(key, value);
+                expected.put(key, value);
+            } else if (operation < 6) {
+                int delta = random.nextInt(21) - 10;
+                table.adjust(key, delta);
+                expected.computeIfPresent(key, (k, qty) -> qty + delta);
+            } else if (operation < 8) {
+                if (expected.containsKey(key)) {
+                    removals++;
+                }
+                table.remove(key);
+                expected.remove(key);
+            } else {
+                assertThat(table.get(key)).isEqualTo(expected.getOrDefault(key, StockAvailability.UNKNOWN));
+            }
+            if (i % 1000 == 0) {
+                assertThat(table.toMap()).isEqualTo(expected);
+            }
+        }
+
+        assertThat(table.toMap()).isEqualTo(expected);
+        for (long key = 1; key <= 2048; key++) {
+            assertThat(table.get(key)).isEqualTo(expected.getOrDefault(key, StockAvailability.UNKNOWN));
+        }
+        assertThat(resizes).isGreaterThan(3);
+        assertThat(removals).isGreaterThan(1000);
+    }
+
+    @Test
+    void resizedTableKeepsEveryEntry() {
+        StockAvailability.Table table = new StockAvailability.Table(16);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (long key = 1; key <= 5000; key++) {
+            if (table.needsResize()) {
+                table = table.resized();
+                assertThat(table.toMap()).isEqualTo(expected);
+            }
+            table.put(key, (int) key * 3);
+            expected.put(key, (int) key * 3);
+        }
+        for (long key = 1; key <= 5000; key += 2) {
+            table.remove(key);
+            expected.remove(key);
+        }
+        assertThat(table.resized().toMap()).isEqualTo(expected);
+        assertThat(table.toMap()).isEqualTo(expected);
+    }
+
+    @Test
+    void changesDuringARebuildAreReplayedOntoTheNewTable() {
+        InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+        StockAvailability stockAvailability = new StockAvailability(inventoryRepository);
+
+        List<Object[]> before = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            before.add(new Object[] {id, 100});
+        }
+        when(inventoryRepository.findStockLevels()).thenReturn(before);
+        stockAvailability.rebuild();
+
+        // The rebuild reads a snapshot taken before these changes commit, and their
+        // callbacks run while it is reading; 40 new parts force a resize on replay
+        Map<Long, Integer> newParts = new HashMap<>();
+        for (long id = 11; id <= 50; id++) {
+            newParts.put(id, (int) id);
+        }
+        when(inventoryRepository.findStockLevel(anyLong()))
+            .thenAnswer(invocation -> Optional.ofNullable(newParts.get(invocation.<Long>getArgument(0))));
+        when(inventoryRepository.findStockLevels()).thenAnswer(invocation -> {
+            stockAvailability.adjustAfterCommit(1, -5);
+            stockAvailability.adjustAfterCommit(2, 7);
+            stockAvailability.removeAfterCommit(3);
+            for (long id : newParts.keySet()) {
+                stockAvailability.reloadAfterCommit(id);
+            }
+            stockAvailability.removeAfterCommit(11);
+            return before;
+        });
+        stockAvailability.rebuild();
+
+        Map<Long, Integer> expected = new HashMap<>();
+        for (long id = 1; id <= 10; id++) {
+            expected.put(id, 100);
+        }
+        expected.put(1L, 95);
+        expected.put(2L, 107);
+        expected.remove(3L);
+        expected.putAll(newParts);
+        expected.remove(11L);
+        assertThat(stockAvailability.getAll()).isEqualTo(expected);
+        assertThat(stockAvailability.getAvailable(3)).isEqualTo(StockAvailability.UNKNOWN);
+        assertThat(stockAvailability.getAvailable(50)).isEqualTo(50);
+
+        // Once the rebuild is done, changes go straight to the table again
+        stockAvailability.adjustAfterCommit(4, 1);
+        assertThat(stockAvailability.getAvailable(4)).isEqualTo(101);
+    }
+}